@@ -23,9 +23,14 @@ android {
     }
 
     buildTypes {
+        debug {
+            // Share of HTTP calls whose bodies are logged (see SampledBodyLoggingInterceptor)
+            buildConfigField("double", "HTTP_BODY_LOG_SAMPLE_RATE", "0.1")
+        }
         release {
             isMinifyEnabled = false
             proguardFiles(getDefaultProguardFile("proguard-android-optimize.txt"), "proguard-rules.pro")
+            buildConfigField("double", "HTTP_BODY_LOG_SAMPLE_RATE", "0.0")
         }
     }
     compileOptions {
@@ -37,10 +42,17 @@ android {
     }
     buildFeatures {
         compose = true
+        buildConfig = true
     }
     composeOptions {
         kotlinCompilerExtensionVersion = "1.5.8" // Compatible with Kotlin 1.9.22
     }
+    testOptions {
+        // JVM unit tests: android.* stubs (SystemClock...) return defaults instead of throwing
+        unitTests.isReturnDefaultValues = true
+        // Benchmarks (ProviderJsonReaderBenchmark) only run with -Pbenchmarks
+        unitTests.all { it.systemProperty("anisflix.benchmarks", project.hasProperty("benchmarks")) }
+    }
     packaging {
         resources {
             excludes += "/META-INF/{AL2.0,LGPL2.1}"
@@ -88,6 +100,8 @@ dependencies {
 
     implementation(libs.androidx.datastore.preferences)
 
+    testImplementation(libs.junit)
+
     debugImplementation(libs.androidx.ui.tooling)
     debugImplementation(libs.androidx.ui.testManifest)
 }
@@ -1,7 +1,31 @@
 package com.anisflix
 
 import android.app.Application
+import coil.ImageLoader
+import coil.ImageLoaderFactory
+import com.anisflix.domain.repository.ConnectionWarmer
 import dagger.hilt.android.HiltAndroidApp
+import okhttp3.OkHttpClient
+import javax.inject.Inject
 
 @HiltAndroidApp
-class AnisflixApp : Application()
+class AnisflixApp : Application(), ImageLoaderFactory {
+
+    @Inject
+    lateinit var okHttpClient: OkHttpClient
+
+    @Inject
+    lateinit var connectionWarmer: ConnectionWarmer
+
+    override fun onCreate() {
+        super.onCreate()
+        connectionWarmer.warmCriticalHosts()
+    }
+
+    // Images go through the shared client, so they reuse its pool (and the warmed connections)
+    override fun newImageLoader(): ImageLoader {
+        return ImageLoader.Builder(this)
+            .okHttpClient(okHttpClient)
+            .build()
+    }
+}
@@ -0,0 +1,16 @@
+package com.anisflix.data.extractor
+
+import com.anisflix.domain.model.StreamingSource
+
+/**
+ * Resolves an embed page (vidmoly, vidzy, ...) to the direct m3u8/mp4 it plays, on device.
+ * Implementations are registered in ExtractorModule and looked up by [StreamingSource.provider].
+ */
+interface EmbedExtractor {
+    // StreamingSource.provider value handled by this extractor
+    val provider: String
+
+    // The source pointing at the direct stream (same id, url/type/headers replaced), or null when
+    // the page could not be resolved
+    suspend fun extract(source: StreamingSource): StreamingSource?
+}
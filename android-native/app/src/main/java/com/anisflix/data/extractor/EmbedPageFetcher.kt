@@ -0,0 +1,41 @@
+package com.anisflix.data.extractor
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import java.io.IOException
+import javax.inject.Inject
+import javax.inject.Singleton
+
+// Downloads embed pages the way a desktop browser would; hosts serve a stripped page otherwise
+@Singleton
+class EmbedPageFetcher @Inject constructor(
+    private val okHttpClient: OkHttpClient
+) {
+
+    // Null when the request failed or returned an error status
+    suspend fun get(url: String, referer: String? = null): String? = withContext(Dispatchers.IO) {
+        val request = Request.Builder()
+            .url(url)
+            .header("User-Agent", USER_AGENT)
+            .apply { if (referer != null) header("Referer", referer) }
+            .build()
+        try {
+            okHttpClient.newCall(request).execute().use { response ->
+                if (response.isSuccessful) response.body?.string() else null
+            }
+        } catch (e: IOException) {
+            e.printStackTrace()
+            null
+        } catch (e: IllegalArgumentException) {
+            // Malformed embed URL
+            e.printStackTrace()
+            null
+        }
+    }
+
+    companion object {
+        const val USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36"
+    }
+}
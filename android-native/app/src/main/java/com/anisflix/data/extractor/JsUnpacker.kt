@@ -0,0 +1,43 @@
+package com.anisflix.data.extractor
+
+/**
+ * Reverses Dean Edwards' p,a,c,k,e,d packer: every word token in the payload is an index, in
+ * base `a`, into the `|`-separated dictionary. Done in one pass instead of one regex per word.
+ */
+internal object JsUnpacker {
+
+    private val PACKED_ARGS = Regex("""\}\('(.*)',\s*(\d+),\s*(\d+),\s*'(.*?)'\.split\('\|'\)""", RegexOption.DOT_MATCHES_ALL)
+    private val WORD = Regex("""\b\w+\b""")
+
+    // Null when the script is not packed
+    fun unpack(script: String): String? {
+        val match = PACKED_ARGS.find(script) ?: return null
+        val payload = match.groupValues[1].replace("\\'", "'")
+        val radix = match.groupValues[2].toIntOrNull() ?: return null
+        val count = match.groupValues[3].toIntOrNull() ?: return null
+        val dictionary = match.groupValues[4].split('|')
+
+        return WORD.replace(payload) { word ->
+            val index = decode(word.value, radix)
+            val replacement = if (index in 0 until count) dictionary.getOrNull(index) else null
+            if (replacement.isNullOrEmpty()) word.value else replacement
+        }
+    }
+
+    // Packer digits are 0-9, a-z, A-Z (radix up to 62); -1 when the token isn't a number in radix
+    private fun decode(token: String, radix: Int): Int {
+        var value = 0
+        for (c in token) {
+            val digit = when (c) {
+                in '0'..'9' -> c - '0'
+                in 'a'..'z' -> c - 'a' + 10
+                in 'A'..'Z' -> c - 'A' + 36
+                else -> return -1
+            }
+            if (digit >= radix) return -1
+            value = value * radix + digit
+            if (value < 0) return -1
+        }
+        return value
+    }
+}
@@ -0,0 +1,49 @@
+package com.anisflix.data.extractor
+
+import com.anisflix.domain.model.StreamingSource
+import javax.inject.Inject
+
+// Same lookup order as the web extractor (api/_services/universalvo/extractors/VidmolyExtractor.js)
+class VidmolyExtractor @Inject constructor(
+    private val pageFetcher: EmbedPageFetcher
+) : EmbedExtractor {
+
+    override val provider = "vidmoly"
+
+    override suspend fun extract(source: StreamingSource): StreamingSource? {
+        val url = source.url.replace("vidmoly.to", "vidmoly.net")
+        var html = pageFetcher.get(url, REFERER) ?: return null
+
+        // "Click to play" gate: the page reloads itself with a ?g= token
+        if (html.contains("startLoading") && html.contains("?g=")) {
+            val token = GATE_TOKEN.find(html)?.groupValues?.get(1)
+            if (token != null) html = pageFetcher.get("$url?g=$token", REFERER) ?: return null
+        }
+
+        val file = (DIRECT_FILE.find(html) ?: HLS_FILE.find(html) ?: ANY_SOURCE_FILE.find(html))
+            ?.groupValues?.get(1)
+            ?: return null
+
+        return source.copy(
+            url = file,
+            type = if (file.contains(".m3u8")) "hls" else "mp4",
+            headers = source.headers.orEmpty() + PLAYBACK_HEADERS
+        )
+    }
+
+    companion object {
+        private const val REFERER = "https://vidmoly.net/"
+
+        private val GATE_TOKEN = Regex("""url\s*\+=\s*['"]\?g=([^'"]+)['"]""")
+        private val DIRECT_FILE = Regex("""file\s*:\s*["']([^"']+\.(?:mp4|mkv)[^"']*)["']""", RegexOption.IGNORE_CASE)
+        private val HLS_FILE = Regex("""file\s*:\s*["']([^"']+\.m3u8[^"']*)["']""", RegexOption.IGNORE_CASE)
+        private val ANY_SOURCE_FILE = Regex("""sources\s*:\s*\[\s*\{\s*file\s*:\s*["']([^"']+)["']""", RegexOption.IGNORE_CASE)
+
+        // The CDN only serves segments to the vidmoly player
+        private val PLAYBACK_HEADERS = mapOf(
+            "Referer" to REFERER,
+            "Origin" to "https://vidmoly.net",
+            "User-Agent" to EmbedPageFetcher.USER_AGENT
+        )
+    }
+}
@@ -0,0 +1,43 @@
+package com.anisflix.data.extractor
+
+import com.anisflix.domain.model.StreamingSource
+import java.net.URI
+import javax.inject.Inject
+
+// The player config sits in a p,a,c,k,e,d packed script (see server/vidzy-scraper.ts)
+class VidzyExtractor @Inject constructor(
+    private val pageFetcher: EmbedPageFetcher
+) : EmbedExtractor {
+
+    override val provider = "vidzy"
+
+    override suspend fun extract(source: StreamingSource): StreamingSource? {
+        val html = pageFetcher.get(source.url) ?: return null
+        val start = html.indexOf(PACKED_MARKER)
+        if (start < 0) return null
+        val end = html.indexOf("</script>", start).let { if (it < 0) html.length else it }
+
+        val script = JsUnpacker.unpack(html.substring(start, end)) ?: return null
+        val m3u8 = HLS_SOURCE.find(script)?.groupValues?.get(1) ?: return null
+
+        val origin = try {
+            URI(source.url).let { "${it.scheme}://${it.host}" }
+        } catch (e: Exception) {
+            null
+        }
+        return source.copy(
+            url = m3u8,
+            type = "hls",
+            headers = if (origin == null) source.headers else source.headers.orEmpty() + mapOf(
+                "Referer" to "$origin/",
+                "Origin" to origin,
+                "User-Agent" to EmbedPageFetcher.USER_AGENT
+            )
+        )
+    }
+
+    companion object {
+        private const val PACKED_MARKER = "eval(function(p,a,c,k,e,d)"
+        private val HLS_SOURCE = Regex("""src:"(https?://[^"]+\.m3u8[^"]*)"""")
+    }
+}
@@ -0,0 +1,49 @@
+package com.anisflix.data.local
+
+import android.util.LruCache
+import com.anisflix.domain.model.StreamingSource
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Direct streams extracted from embed pages, keyed by the embed source id. Entries live until the
+ * stream's signed expiry (minus StreamingSource.EXPIRY_MARGIN_MS), or [DEFAULT_TTL_MS] when it has
+ * none.
+ */
+@Singleton
+class ExtractedStreamCache @Inject constructor() {
+
+    private class Entry(val source: StreamingSource, val expiresAt: Long)
+
+    private val entries = LruCache<String, Entry>(MAX_ENTRIES)
+
+    fun get(sourceId: String): StreamingSource? {
+        val entry = entries.get(sourceId) ?: return null
+        if (System.currentTimeMillis() >= entry.expiresAt) {
+            entries.remove(sourceId)
+            return null
+        }
+        return entry.source
+    }
+
+    fun put(sourceId: String, resolved: StreamingSource) {
+        val now = System.currentTimeMillis()
+        val signedExpiry = resolved.expiresAt
+        val expiresAt = if (signedExpiry != null) {
+            (signedExpiry - StreamingSource.EXPIRY_MARGIN_MS).coerceAtMost(now + MAX_TTL_MS)
+        } else {
+            now + DEFAULT_TTL_MS
+        }
+        if (expiresAt > now) entries.put(sourceId, Entry(resolved, expiresAt))
+    }
+
+    fun invalidate(sourceId: String) {
+        entries.remove(sourceId)
+    }
+
+    companion object {
+        private const val MAX_ENTRIES = 100
+        private const val DEFAULT_TTL_MS = 20 * 60_000L
+        private const val MAX_TTL_MS = 6 * 60 * 60_000L
+    }
+}
@@ -0,0 +1,70 @@
+package com.anisflix.data.local
+
+import android.util.LruCache
+import com.anisflix.data.remote.dto.FStreamTVResponse
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Parsed `fstream/tv/{id}/season/{n}` payloads, so every episode of a season is served from a
+ * single download. Bounded by the total number of cached episodes, not by seasons.
+ */
+@Singleton
+class FStreamSeasonCache @Inject constructor() {
+
+    private class Entry(val response: FStreamTVResponse, val fetchedAt: Long)
+
+    private val seasons = object : LruCache<String, Entry>(MAX_EPISODES) {
+        override fun sizeOf(key: String, value: Entry): Int {
+            return (value.response.episodes?.size ?: 0).coerceAtLeast(1)
+        }
+    }
+
+    // One lock per season so concurrent episode lookups share the same download
+    private val loadLocks = ConcurrentHashMap<String, Mutex>()
+
+    suspend fun getOrLoad(
+        seriesId: Int,
+        season: Int,
+        episode: Int,
+        loader: suspend () -> FStreamTVResponse?
+    ): FStreamTVResponse? {
+        val key = key(seriesId, season)
+        return loadLocks.getOrPut(key) { Mutex() }.withLock {
+            val cached = seasons.get(key)
+            if (cached != null && isUsable(cached, episode)) {
+                cached.response
+            } else {
+                loader()?.also { seasons.put(key, Entry(it, System.currentTimeMillis())) }
+            }
+        }
+    }
+
+    fun invalidate(seriesId: Int, season: Int) {
+        seasons.remove(key(seriesId, season))
+    }
+
+    fun invalidateSeries(seriesId: Int) {
+        val prefix = "$seriesId:"
+        seasons.snapshot().keys.filter { it.startsWith(prefix) }.forEach { seasons.remove(it) }
+    }
+
+    private fun isUsable(entry: Entry, episode: Int): Boolean {
+        val age = System.currentTimeMillis() - entry.fetchedAt
+        if (age > TTL_MS) return false
+        // A missing episode may have aired since the season was cached: refetch, but not in a loop
+        val hasEpisode = entry.response.episodes?.containsKey(episode.toString()) == true
+        return hasEpisode || age < MISSING_EPISODE_RETRY_MS
+    }
+
+    private fun key(seriesId: Int, season: Int) = "$seriesId:$season"
+
+    companion object {
+        private const val MAX_EPISODES = 400
+        private const val TTL_MS = 60 * 60_000L
+        private const val MISSING_EPISODE_RETRY_MS = 5 * 60_000L
+    }
+}
@@ -0,0 +1,173 @@
+package com.anisflix.data.local
+
+import android.content.Context
+import android.util.LruCache
+import com.anisflix.domain.model.StreamingSource
+import com.google.gson.Gson
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+data class SourceCacheConfig(
+    val memoryEntries: Int = 200,
+    val diskEntries: Int = 1_000,
+    // Fresh lifetime per provider; past it an entry is served stale while it is refreshed
+    val defaultTtlMs: Long = 30 * 60_000L,
+    val providerTtlsMs: Map<String, Long> = mapOf(
+        "tmdb" to 60 * 60_000L,
+        "fstream" to 60 * 60_000L,
+        "moviebox" to 15 * 60_000L // Signed CDN links, expire quickly
+    ),
+    // How long after the TTL a stale entry may still be served
+    val staleWindowMs: Long = 24 * 60 * 60_000L
+) {
+    fun ttlFor(provider: String): Long = providerTtlsMs[provider] ?: defaultTtlMs
+}
+
+data class SourceCacheStats(
+    val memoryHits: Long,
+    val diskHits: Long,
+    val staleHits: Long,
+    val misses: Long
+) {
+    val hitRate: Double
+        get() {
+            val total = memoryHits + diskHits + misses
+            return if (total == 0L) 0.0 else (memoryHits + diskHits).toDouble() / total
+        }
+}
+
+/**
+ * Resolved sources per (title, provider), in memory (LRU) and on disk.
+ * Title keys are "movie:<id>" or "tv:<id>:<season>:<episode>".
+ */
+@Singleton
+class SourceCache @Inject constructor(
+    @ApplicationContext context: Context,
+    private val gson: Gson,
+    private val config: SourceCacheConfig
+) {
+
+    class Hit(val sources: List<StreamingSource>, val isStale: Boolean)
+
+    private class Entry(val sources: List<StreamingSource>, val fetchedAt: Long)
+
+    private val memory = LruCache<String, Entry>(config.memoryEntries)
+    private val directory = File(context.cacheDir, "sources")
+
+    private val memoryHits = AtomicLong()
+    private val diskHits = AtomicLong()
+    private val staleHits = AtomicLong()
+    private val misses = AtomicLong()
+
+    // Null when absent or past the stale window. A hit may be stale: the caller should refresh it.
+    suspend fun get(titleKey: String, provider: String): Hit? {
+        val key = "$titleKey|$provider"
+        val fromMemory = memory.get(key)
+        val entry = fromMemory ?: readFromDisk(key)?.also { memory.put(key, it) }
+
+        if (entry == null) {
+            misses.incrementAndGet()
+            return null
+        }
+
+        val now = System.currentTimeMillis()
+        val age = now - entry.fetchedAt
+        val ttl = config.ttlFor(provider)
+        // Signed links past (or about to pass) their expiry would fail at playback start
+        val usable = entry.sources.filterNot { it.expiresWithin(StreamingSource.EXPIRY_MARGIN_MS, now) }
+        if (age > ttl + config.staleWindowMs || usable.isEmpty()) {
+            remove(key)
+            misses.incrementAndGet()
+            return null
+        }
+
+        if (fromMemory != null) memoryHits.incrementAndGet() else diskHits.incrementAndGet()
+        // Revalidate early when links are dropping out or close to expiring
+        val isStale = age > ttl || usable.size < entry.sources.size ||
+            usable.any { it.expiresWithin(EXPIRY_REFRESH_LEAD_MS, now) }
+        if (isStale) staleHits.incrementAndGet()
+        return Hit(usable, isStale)
+    }
+
+    suspend fun put(titleKey: String, provider: String, sources: List<StreamingSource>) {
+        // An empty answer is usually a provider hiccup, don't pin it
+        if (sources.isEmpty()) return
+        val key = "$titleKey|$provider"
+        val entry = Entry(sources, System.currentTimeMillis())
+        memory.put(key, entry)
+        writeToDisk(key, entry)
+    }
+
+    suspend fun invalidate(titleKey: String) {
+        val prefix = "$titleKey|"
+        memory.snapshot().keys.filter { it.startsWith(prefix) }.forEach { memory.remove(it) }
+        withContext(Dispatchers.IO) {
+            directory.listFiles()?.forEach { file ->
+                if (file.name.startsWith(fileNamePrefix(titleKey))) file.delete()
+            }
+        }
+    }
+
+    fun stats(): SourceCacheStats = SourceCacheStats(
+        memoryHits = memoryHits.get(),
+        diskHits = diskHits.get(),
+        staleHits = staleHits.get(),
+        misses = misses.get()
+    )
+
+    // --- Disk ---
+
+    private suspend fun readFromDisk(key: String): Entry? = withContext(Dispatchers.IO) {
+        val file = fileFor(key)
+        if (!file.exists()) return@withContext null
+        try {
+            file.reader().use { gson.fromJson(it, Entry::class.java) }
+        } catch (e: Exception) {
+            e.printStackTrace()
+            file.delete()
+            null
+        }
+    }
+
+    private suspend fun writeToDisk(key: String, entry: Entry) = withContext(Dispatchers.IO) {
+        try {
+            directory.mkdirs()
+            val tmp = File(directory, fileFor(key).name + ".tmp")
+            tmp.writer().use { gson.toJson(entry, it) }
+            tmp.renameTo(fileFor(key))
+            trimDisk()
+        } catch (e: Exception) {
+            e.printStackTrace()
+        }
+    }
+
+    private fun trimDisk() {
+        val files = directory.listFiles() ?: return
+        if (files.size <= config.diskEntries) return
+        files.sortedBy { it.lastModified() }
+            .take(files.size - config.diskEntries)
+            .forEach { it.delete() }
+    }
+
+    private fun remove(key: String) {
+        memory.remove(key)
+        fileFor(key).delete()
+    }
+
+    private fun fileFor(key: String): File {
+        val titleKey = key.substringBefore('|')
+        val provider = key.substringAfter('|')
+        return File(directory, fileNamePrefix(titleKey) + provider + ".json")
+    }
+
+    private fun fileNamePrefix(titleKey: String): String = titleKey.replace(':', '_') + "__"
+
+    companion object {
+        private const val EXPIRY_REFRESH_LEAD_MS = 10 * 60_000L
+    }
+}
@@ -0,0 +1,76 @@
+package com.anisflix.data.mapper
+
+import java.net.URLDecoder
+import java.text.SimpleDateFormat
+import java.util.Locale
+import java.util.TimeZone
+
+/**
+ * Reads the expiry that CDNs sign into stream URLs, so resolved URLs are only reused while the
+ * host will still accept them.
+ */
+object SignedUrlExpiry {
+
+    // Absolute epoch (seconds or ms)
+    private val EXPIRY_PARAMS = listOf("expires", "expiry", "exp", "e", "deadline", "validto")
+    // The only ones also seen as a lifetime, and then always next to the signing time
+    private val DURATION_PARAMS = setOf("expires", "expiry")
+    private val START_PARAMS = listOf("st", "t")
+    private val EMBEDDED_EXP = Regex("""(?:^|[~&])exp=(\d+)""") // Akamai hdnts / __token__
+
+    // Anything past 2001-09-09 in seconds is an absolute timestamp
+    private const val EPOCH_SECONDS_MIN = 1_000_000_000L
+    private const val EPOCH_MILLIS_MIN = 1_000_000_000_000L
+
+    /** Wall-clock time (ms) after which [url] stops working, or null when it carries no expiry. */
+    fun expiresAt(url: String): Long? {
+        val query = url.substringBefore('#').substringAfter('?', "")
+        if (query.isEmpty()) return null
+        val params = HashMap<String, String>()
+        for (part in query.split('&')) {
+            val name = part.substringBefore('=').lowercase()
+            if (name.isNotEmpty() && name !in params) params[name] = part.substringAfter('=', "")
+        }
+
+        amzExpiry(params)?.let { return it }
+
+        for (name in EXPIRY_PARAMS) {
+            val value = params[name]?.toLongOrNull() ?: continue
+            toEpochMillis(value)?.let { return it }
+            // A small value is a lifetime only with the signing time to count from. Otherwise it's
+            // something else (a counter, a flag) and says nothing about expiry.
+            if (name !in DURATION_PARAMS) continue
+            val start = START_PARAMS.firstNotNullOfOrNull { params[it]?.toLongOrNull()?.let(::toEpochMillis) } ?: continue
+            return start + value * 1000
+        }
+
+        for (value in params.values) {
+            val decoded = try {
+                URLDecoder.decode(value, "UTF-8")
+            } catch (e: IllegalArgumentException) {
+                value
+            }
+            val embedded = EMBEDDED_EXP.find(decoded)
+            embedded?.groupValues?.get(1)?.toLongOrNull()?.let(::toEpochMillis)?.let { return it }
+        }
+        return null
+    }
+
+    // S3 SigV4: X-Amz-Date (yyyyMMdd'T'HHmmss'Z') + X-Amz-Expires (seconds)
+    private fun amzExpiry(params: Map<String, String>): Long? {
+        val seconds = params["x-amz-expires"]?.toLongOrNull() ?: return null
+        val date = params["x-amz-date"] ?: return null
+        return try {
+            val format = SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'", Locale.US).apply { timeZone = TimeZone.getTimeZone("UTC") }
+            format.parse(date)?.time?.plus(seconds * 1000)
+        } catch (e: Exception) {
+            null
+        }
+    }
+
+    private fun toEpochMillis(value: Long): Long? = when {
+        value >= EPOCH_MILLIS_MIN -> value
+        value >= EPOCH_SECONDS_MIN -> value * 1000
+        else -> null
+    }
+}
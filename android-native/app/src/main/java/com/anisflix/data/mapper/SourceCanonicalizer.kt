@@ -0,0 +1,118 @@
+package com.anisflix.data.mapper
+
+import com.anisflix.domain.model.StreamingSource
+import com.anisflix.domain.model.Subtitle
+
+/**
+ * Content-derived identity for sources: the same stream gets the same ID on every fetch and from
+ * every origin, so duplicates can be merged and lists diffed.
+ */
+object SourceCanonicalizer {
+
+    // Query parameters that only ever carry a signature, an expiry or a cache buster
+    private val VOLATILE_PARAMS = setOf("sig", "signature", "exp", "expires", "expiry", "_", "cb", "rand", "nonce")
+    private val VOLATILE_PARAM_PREFIXES = listOf("x-amz-", "utm_")
+    // Their presence means the URL is signed
+    private val SIGNING_PARAMS = setOf("sig", "signature", "exp", "expires", "expiry", "x-amz-signature")
+
+    // Generic names: a signing time or token on some hosts, the stream's identity on others
+    // (player.php?hash=<id>, ?e=<episode>). Dropped only when the value is recognisably the former:
+    // an epoch timestamp, or a signature-like value on a signed URL.
+    private val AMBIGUOUS_PARAMS = setOf("token", "t", "ts", "e", "st", "hash", "md5", "auth", "ip")
+    private val SIGNATURE_VALUE = Regex("""[A-Za-z0-9_\-.~%]{16,}""")
+    private val IPV4_VALUE = Regex("""\d{1,3}(?:\.\d{1,3}){3}""")
+    // 2001 to 2100, in seconds or milliseconds
+    private val EPOCH_SECONDS = 1_000_000_000L..4_102_444_800L
+    private val EPOCH_MILLIS = 1_000_000_000_000L..4_102_444_800_000L
+
+    private const val FNV_OFFSET_BASIS = -0x340d631b7bdddcdbL // 0xcbf29ce484222325
+    private const val FNV_PRIME = 0x100000001b3L
+
+    // Scheme-less, lower-cased host, default ports and fragment dropped, volatile params removed
+    // and the remaining ones sorted
+    fun canonicalUrl(url: String): String {
+        val withoutFragment = url.trim().substringBefore('#')
+        val base = withoutFragment.substringBefore('?')
+        val query = withoutFragment.substringAfter('?', "")
+
+        val afterScheme = base.substringAfter("://", base)
+        val authority = afterScheme.substringBefore('/').lowercase()
+            .removeSuffix(":80")
+            .removeSuffix(":443")
+        val path = afterScheme.substring(afterScheme.indexOf('/').let { if (it < 0) afterScheme.length else it })
+            .trimEnd('/')
+
+        val params = query.split('&').filter { it.isNotEmpty() }
+        val signed = params.any { it.substringBefore('=').lowercase() in SIGNING_PARAMS }
+        val kept = params
+            .filter { !isVolatile(it.substringBefore('=').lowercase(), it.substringAfter('=', ""), signed) }
+            .sorted()
+
+        return buildString {
+            append(authority)
+            append(path)
+            if (kept.isNotEmpty()) {
+                append('?')
+                kept.joinTo(this, "&")
+            }
+        }
+    }
+
+    fun stableId(url: String): Long = fnv1a64(canonicalUrl(url))
+
+    // Hex form used for StreamingSource.id
+    fun stableIdString(url: String): String = java.lang.Long.toHexString(stableId(url))
+
+    /**
+     * Merges sources pointing at the same stream. The first occurrence (highest priority origin)
+     * wins; later duplicates only contribute metadata it lacks (tracks, headers, quality).
+     */
+    fun dedupe(sources: List<StreamingSource>): List<StreamingSource> {
+        val merged = LinkedHashMap<String, StreamingSource>(sources.size)
+        for (source in sources) {
+            val existing = merged[source.id]
+            merged[source.id] = if (existing == null) source else mergeInto(existing, source)
+        }
+        return merged.values.toList()
+    }
+
+    private fun mergeInto(kept: StreamingSource, duplicate: StreamingSource): StreamingSource {
+        return kept.copy(
+            quality = if (isGenericQuality(kept.quality) && !isGenericQuality(duplicate.quality)) duplicate.quality else kept.quality,
+            tracks = mergeTracks(kept.tracks, duplicate.tracks),
+            headers = when {
+                duplicate.headers.isNullOrEmpty() -> kept.headers
+                kept.headers.isNullOrEmpty() -> duplicate.headers
+                else -> duplicate.headers + kept.headers
+            }
+        )
+    }
+
+    private fun mergeTracks(kept: List<Subtitle>?, other: List<Subtitle>?): List<Subtitle>? {
+        if (other.isNullOrEmpty()) return kept
+        if (kept.isNullOrEmpty()) return other
+        val urls = kept.mapTo(HashSet()) { it.url }
+        return kept + other.filter { it.url !in urls }
+    }
+
+    // "HD" is what the mappers fall back to when a provider gives no quality
+    private fun isGenericQuality(quality: String): Boolean = quality.isBlank() || quality.equals("HD", ignoreCase = true)
+
+    private fun isVolatile(name: String, value: String, signed: Boolean): Boolean {
+        if (name in VOLATILE_PARAMS || VOLATILE_PARAM_PREFIXES.any { name.startsWith(it) }) return true
+        if (name !in AMBIGUOUS_PARAMS) return false
+        val number = value.toLongOrNull()
+        if (number != null && (number in EPOCH_SECONDS || number in EPOCH_MILLIS)) return true
+        if (!signed) return false
+        return if (name == "ip") IPV4_VALUE.matches(value) else SIGNATURE_VALUE.matches(value)
+    }
+
+    private fun fnv1a64(value: String): Long {
+        var hash = FNV_OFFSET_BASIS
+        for (c in value) {
+            hash = hash xor c.code.toLong()
+            hash *= FNV_PRIME
+        }
+        return hash
+    }
+}
@@ -0,0 +1,212 @@
+package com.anisflix.data.mapper
+
+/**
+ * Provider and language classification used by the mappers. The rule tables below are compiled
+ * once into keyword automata, so each field is scanned in a single case-folded pass without
+ * allocating lower-cased copies.
+ *
+ * Rules are in precedence order: when several match, the first one wins.
+ */
+internal object SourceClassifier {
+
+    private const val QUALITY = 1
+    private const val URL = 2
+    private const val PROVIDER = 4
+    private const val ALL_FIELDS = QUALITY or URL or PROVIDER
+
+    private class ProviderRule(val keyword: String, val provider: String, val fields: Int)
+
+    private val PROVIDER_RULES = listOf(
+        ProviderRule("vidmoly", "vidmoly", ALL_FIELDS),
+        ProviderRule("vidzy", "vidzy", ALL_FIELDS),
+        ProviderRule("darki", "darki", QUALITY or URL), // Not matched on the provider name
+        ProviderRule("moviebox", "moviebox", ALL_FIELDS)
+    )
+
+    // contains: keyword anywhere in the value; exact: the whole value (case-insensitive)
+    private class LanguageRule(val language: String, val contains: List<String>, val exact: List<String>)
+
+    private val LANGUAGE_RULES = listOf(
+        LanguageRule("VF", contains = listOf("french", "français"), exact = listOf("fr", "vf", "vfq", "default")),
+        LanguageRule("VO", contains = listOf("english"), exact = listOf("en", "eng", "vo")),
+        LanguageRule("VOSTFR", contains = listOf("vostfr", "subtitle"), exact = emptyList())
+    )
+
+    private const val DEFAULT_LANGUAGE = "VF"
+
+    // --- Compiled tables ---
+
+    // Provider pattern i is rule i
+    private val providerMatcher = KeywordAutomaton(PROVIDER_RULES.map { it.keyword })
+    private val qualityPatterns = fieldMask(QUALITY)
+    private val urlPatterns = fieldMask(URL)
+    private val providerPatterns = fieldMask(PROVIDER)
+
+    // Language patterns are laid out rule by rule, so the lowest matching pattern is the winning rule
+    private val languagePatternRule: IntArray
+    private val languageExactPatterns: Long
+    private val languageMatcher: KeywordAutomaton
+
+    init {
+        val patterns = ArrayList<String>()
+        val rules = ArrayList<Int>()
+        var exact = 0L
+        LANGUAGE_RULES.forEachIndexed { index, rule ->
+            rule.contains.forEach {
+                patterns += it
+                rules += index
+            }
+            rule.exact.forEach {
+                exact = exact or (1L shl patterns.size)
+                patterns += it
+                rules += index
+            }
+        }
+        languagePatternRule = rules.toIntArray()
+        languageExactPatterns = exact
+        languageMatcher = KeywordAutomaton(patterns)
+    }
+
+    fun language(raw: String): String {
+        val matched = languageMatcher.scan(raw, languageExactPatterns)
+        if (matched == 0L) return DEFAULT_LANGUAGE
+        return LANGUAGE_RULES[languagePatternRule[java.lang.Long.numberOfTrailingZeros(matched)]].language
+    }
+
+    fun provider(rawProvider: String, quality: String, url: String): String {
+        val matched = (providerMatcher.scan(quality) and qualityPatterns) or
+            (providerMatcher.scan(url) and urlPatterns) or
+            (providerMatcher.scan(rawProvider) and providerPatterns)
+        if (matched == 0L) return rawProvider.lowercase()
+        return PROVIDER_RULES[java.lang.Long.numberOfTrailingZeros(matched)].provider
+    }
+
+    private fun fieldMask(field: Int): Long {
+        var mask = 0L
+        PROVIDER_RULES.forEachIndexed { index, rule ->
+            if (rule.fields and field != 0) mask = mask or (1L shl index)
+        }
+        return mask
+    }
+}
+
+/**
+ * Aho-Corasick automaton over lower-case keywords (at most 64). ASCII transitions are a dense
+ * table; the few non-ASCII edges ("ç") go through the trie and failure links.
+ */
+private class KeywordAutomaton(patterns: List<String>) {
+
+    private val asciiNext: IntArray
+    private val wideKeys: Array<CharArray>
+    private val wideTargets: Array<IntArray>
+    private val fail: IntArray
+    private val output: LongArray
+    // Bit set of the patterns of each length, for whole-value matches
+    private val patternsByLength: LongArray
+
+    init {
+        require(patterns.size <= 64) { "Too many keywords" }
+
+        val edges = ArrayList<HashMap<Char, Int>>().apply { add(HashMap()) }
+        val out = ArrayList<Long>().apply { add(0L) }
+        patterns.forEachIndexed { index, pattern ->
+            var node = 0
+            for (c in pattern) {
+                node = edges[node].getOrPut(c) {
+                    edges.add(HashMap())
+                    out.add(0L)
+                    edges.size - 1
+                }
+            }
+            out[node] = out[node] or (1L shl index)
+        }
+
+        val size = edges.size
+        fail = IntArray(size)
+        output = LongArray(size)
+
+        // Breadth-first, so a node's failure target is complete before the node itself
+        val order = ArrayList<Int>(size)
+        val queue = ArrayDeque<Int>()
+        queue.add(0)
+        while (queue.isNotEmpty()) {
+            val node = queue.removeFirst()
+            order += node
+            output[node] = out[node] or (if (node == 0) 0L else output[fail[node]])
+            for ((c, child) in edges[node]) {
+                if (node != 0) {
+                    var f = fail[node]
+                    while (f != 0 && c !in edges[f]) f = fail[f]
+                    fail[child] = edges[f][c] ?: 0
+                }
+                queue.add(child)
+            }
+        }
+
+        asciiNext = IntArray(size * ASCII)
+        for (node in order) {
+            for (c in 0 until ASCII) {
+                asciiNext[node * ASCII + c] = edges[node][c.toChar()]
+                    ?: if (node == 0) 0 else asciiNext[fail[node] * ASCII + c]
+            }
+        }
+
+        wideKeys = Array(size) { node ->
+            edges[node].keys.filter { it.code >= ASCII }.sorted().toCharArray()
+        }
+        wideTargets = Array(size) { node ->
+            IntArray(wideKeys[node].size) { edges[node].getValue(wideKeys[node][it]) }
+        }
+
+        patternsByLength = LongArray((patterns.maxOfOrNull { it.length } ?: 0) + 1)
+        patterns.forEachIndexed { index, pattern ->
+            patternsByLength[pattern.length] = patternsByLength[pattern.length] or (1L shl index)
+        }
+    }
+
+    /**
+     * Bit set of the keywords found in [text], compared as if lower-cased. Keywords in
+     * [exactPatterns] only count when they are the whole text.
+     */
+    fun scan(text: String, exactPatterns: Long = 0L): Long {
+        var state = 0
+        var found = 0L
+        var foldedLength = 0
+        for (c in text) {
+            if (c == DOTTED_CAPITAL_I) {
+                // The one BMP char whose lower case is two chars ("i" + combining dot)
+                state = step(state, 'i')
+                found = found or output[state]
+                state = step(state, COMBINING_DOT)
+                foldedLength += 2
+            } else {
+                state = step(state, Character.toLowerCase(c))
+                foldedLength++
+            }
+            found = found or output[state]
+        }
+        found = found and exactPatterns.inv()
+        if (exactPatterns != 0L && foldedLength < patternsByLength.size) {
+            found = found or (output[state] and exactPatterns and patternsByLength[foldedLength])
+        }
+        return found
+    }
+
+    private fun step(state: Int, c: Char): Int {
+        if (c.code < ASCII) return asciiNext[state * ASCII + c.code]
+        var node = state
+        while (true) {
+            val keys = wideKeys[node]
+            val index = keys.binarySearch(c)
+            if (index >= 0) return wideTargets[node][index]
+            if (node == 0) return 0
+            node = fail[node]
+        }
+    }
+
+    companion object {
+        private const val ASCII = 128
+        private const val DOTTED_CAPITAL_I = '\u0130'
+        private const val COMBINING_DOT = '\u0307'
+    }
+}
@@ -3,16 +3,14 @@ package com.anisflix.data.mapper
 import com.anisflix.data.remote.dto.*
 import com.anisflix.domain.model.StreamingSource
 import com.anisflix.domain.model.Subtitle
-import java.util.UUID
 
 fun StreamingSourceDTO.toDomain(origin: String? = null): StreamingSource {
-    val normalizedLanguage = normalizeLanguage(language ?: "VF")
-    val normalizedProvider = normalizeProvider(provider ?: "unknown", quality ?: "", url)
+    val normalizedLanguage = SourceClassifier.language(language ?: "VF")
+    val normalizedProvider = SourceClassifier.provider(provider ?: "unknown", quality ?: "", url)
     val finalType = type ?: if (url.contains(".m3u8")) "hls" else "mp4"
-    val idString = "${normalizedProvider}_${quality}_${normalizedLanguage}_$url".hashCode().toString()
-    
     return StreamingSource(
-        id = idString,
+        id = SourceCanonicalizer.stableIdString(url),
+        expiresAt = SignedUrlExpiry.expiresAt(url),
         url = url,
         quality = quality ?: "HD",
         language = normalizedLanguage,
@@ -34,11 +32,12 @@ fun SubtitleDTO.toDomain(): Subtitle {
 }
 
 fun FStreamPlayerDTO.toDomain(languageKey: String): StreamingSource {
-    val normalizedLanguage = normalizeLanguage(languageKey)
-    val normalizedProvider = normalizeProvider(player, quality, url)
+    val normalizedLanguage = SourceClassifier.language(languageKey)
+    val normalizedProvider = SourceClassifier.provider(player, quality, url)
     
     return StreamingSource(
-        id = UUID.randomUUID().toString(),
+        id = SourceCanonicalizer.stableIdString(url),
+        expiresAt = SignedUrlExpiry.expiresAt(url),
         url = url,
         quality = quality,
         language = normalizedLanguage,
@@ -52,7 +51,8 @@ fun MovieBoxStreamDTO.toDomain(): StreamingSource {
     val normalizedType = type ?: if (url.contains(".m3u8")) "hls" else "mp4"
     
     return StreamingSource(
-        id = UUID.randomUUID().toString(),
+        id = SourceCanonicalizer.stableIdString(url),
+        expiresAt = SignedUrlExpiry.expiresAt(url),
         url = url,
         quality = quality ?: "HD",
         language = "VO", // MovieBox is typically VO
@@ -64,24 +64,26 @@ fun MovieBoxStreamDTO.toDomain(): StreamingSource {
 }
 
 fun UniversalVOFileDTO.toDomain(): StreamingSource {
-    val normalizedLanguage = normalizeLanguage(lang ?: "VO")
+    val normalizedLanguage = SourceClassifier.language(lang ?: "VO")
     
     return StreamingSource(
-        id = UUID.randomUUID().toString(),
+        id = SourceCanonicalizer.stableIdString(file),
+        expiresAt = SignedUrlExpiry.expiresAt(file),
         url = file,
         quality = quality ?: "HD",
         language = normalizedLanguage,
         provider = provider ?: "universal",
         type = type,
-        origin = "universal_vo"
+        origin = "universalvo"
     )
 }
 
 fun AfterDarkSourceDTO.toDomain(): StreamingSource {
-    val normalizedLanguage = normalizeLanguage(language ?: "VO")
+    val normalizedLanguage = SourceClassifier.language(language ?: "VO")
     
     return StreamingSource(
-        id = UUID.randomUUID().toString(),
+        id = SourceCanonicalizer.stableIdString(url),
+        expiresAt = SignedUrlExpiry.expiresAt(url),
         url = url,
         quality = quality ?: "HD",
         language = normalizedLanguage,
@@ -92,11 +94,12 @@ fun AfterDarkSourceDTO.toDomain(): StreamingSource {
 }
 
 fun MovixDownloadSourceDTO.toDomain(): StreamingSource {
-    val normalizedLanguage = normalizeLanguage(language ?: "VF")
+    val normalizedLanguage = SourceClassifier.language(language ?: "VF")
     val finalUrl = m3u8 ?: src ?: ""
     
     return StreamingSource(
-        id = UUID.randomUUID().toString(),
+        id = SourceCanonicalizer.stableIdString(finalUrl),
+        expiresAt = SignedUrlExpiry.expiresAt(finalUrl),
         url = finalUrl,
         quality = quality ?: "HD",
         language = normalizedLanguage,
@@ -106,27 +109,3 @@ fun MovixDownloadSourceDTO.toDomain(): StreamingSource {
     )
 }
 
-
-private fun normalizeLanguage(raw: String): String {
-    val lower = raw.lowercase()
-    return when {
-         lower.contains("french") || lower.contains("français") || lower == "fr" || lower == "vf" || lower == "vfq" || lower == "default" -> "VF"
-         lower.contains("english") || lower == "en" || lower == "eng" || lower == "vo" -> "VO"
-         lower.contains("vostfr") || lower.contains("subtitle") -> "VOSTFR"
-         else -> "VF"
-    }
-}
-
-private fun normalizeProvider(rawProvider: String, quality: String, url: String): String {
-    val lowerUrl = url.lowercase()
-    val lowerQuality = quality.lowercase()
-    val lowerProvider = rawProvider.lowercase()
-    
-    return when {
-        lowerQuality.contains("vidmoly") || lowerUrl.contains("vidmoly") || lowerProvider.contains("vidmoly") -> "vidmoly"
-        lowerQuality.contains("vidzy") || lowerUrl.contains("vidzy") || lowerProvider.contains("vidzy") -> "vidzy"
-        lowerQuality.contains("darki") || lowerUrl.contains("darki") -> "darki"
-        lowerQuality.contains("moviebox") || lowerUrl.contains("moviebox") || lowerProvider.contains("moviebox") -> "moviebox"
-        else -> lowerProvider
-    }
-}
@@ -0,0 +1,33 @@
+package com.anisflix.data.provider
+
+import com.anisflix.data.mapper.toDomain
+import com.anisflix.data.remote.ProxyFetcher
+import com.anisflix.data.remote.dto.AfterDarkResponse
+import com.anisflix.domain.model.StreamingSource
+import com.google.gson.Gson
+import javax.inject.Inject
+
+class AfterDarkSourceProvider @Inject constructor(
+    private val fetcher: ProxyFetcher,
+    private val gson: Gson
+) : SourceProvider {
+
+    override val name = "afterdark"
+    override val priority = 40
+    override val maxConcurrency = 1 // Scraper behind Cloudflare, keep it gentle
+    override val timeoutMs = 7_000L
+    override val directStreams = true
+
+    override suspend fun fetchMovie(movieId: Int): List<StreamingSource>? {
+        return fetchSources("afterdark&tmdbId=$movieId&type=movie")
+    }
+
+    override suspend fun fetchEpisode(seriesId: Int, season: Int, episode: Int): List<StreamingSource>? {
+        return fetchSources("afterdark&tmdbId=$seriesId&type=tv&season=$season&episode=$episode")
+    }
+
+    private suspend fun fetchSources(path: String): List<StreamingSource>? {
+        val dto = fetcher.fetch(path) { gson.fromJson<AfterDarkResponse>(it, AfterDarkResponse::class.java) } ?: return null
+        return dto.sources?.map { it.toDomain() } ?: emptyList()
+    }
+}
@@ -0,0 +1,44 @@
+package com.anisflix.data.provider
+
+import com.anisflix.data.local.FStreamSeasonCache
+import com.anisflix.data.mapper.toDomain
+import com.anisflix.data.remote.ProxyFetcher
+import com.anisflix.data.remote.parser.ProviderJsonReader
+import com.anisflix.domain.model.StreamingSource
+import javax.inject.Inject
+
+class FStreamSourceProvider @Inject constructor(
+    private val fetcher: ProxyFetcher,
+    private val seasonCache: FStreamSeasonCache
+) : SourceProvider {
+
+    override val name = "fstream"
+    override val priority = 20
+    override val maxConcurrency = 3
+    override val timeoutMs = 6_000L
+    override val directStreams = false
+
+    override suspend fun fetchMovie(movieId: Int): List<StreamingSource>? {
+        val dto = fetcher.fetch("fstream/movie/$movieId") { ProviderJsonReader.readFStreamMovie(it) } ?: return null
+        val sources = mutableListOf<StreamingSource>()
+        dto.players?.forEach { (lang, list) ->
+            list.forEach { sources.add(it.toDomain(lang)) }
+        }
+        return sources
+    }
+
+    override suspend fun fetchEpisode(seriesId: Int, season: Int, episode: Int): List<StreamingSource>? {
+        // path=fstream/tv/$seriesId/season/$season
+        // The payload holds the whole season: download it once and slice episodes from the cache
+        val dto = seasonCache.getOrLoad(seriesId, season, episode) {
+            // Every episode is kept for the cache, but per-episode metadata is skipped while parsing
+            fetcher.fetch("fstream/tv/$seriesId/season/$season") { ProviderJsonReader.readFStreamSeason(it) }
+        } ?: return null
+        // Extract episode
+        val sources = mutableListOf<StreamingSource>()
+        dto.episodes?.get(episode.toString())?.languages?.forEach { (lang, list) ->
+            list.forEach { sources.add(it.toDomain(lang)) }
+        }
+        return sources
+    }
+}
@@ -0,0 +1,29 @@
+package com.anisflix.data.provider
+
+import com.anisflix.data.mapper.toDomain
+import com.anisflix.data.remote.ProxyFetcher
+import com.anisflix.data.remote.parser.ProviderJsonReader
+import com.anisflix.domain.model.StreamingSource
+import javax.inject.Inject
+
+class MovieBoxSourceProvider @Inject constructor(
+    private val fetcher: ProxyFetcher
+) : SourceProvider {
+
+    override val name = "moviebox"
+    override val priority = 10
+    override val maxConcurrency = 2 // Scraped server side, slow and heavy on the proxy
+    override val timeoutMs = 5_000L
+    override val directStreams = true
+
+    override suspend fun fetchMovie(movieId: Int): List<StreamingSource>? {
+        // path=moviebox&tmdbId=...&type=movie
+        val dto = fetcher.fetch("moviebox&tmdbId=$movieId&type=movie") { ProviderJsonReader.readMovieBox(it) } ?: return null
+        return dto.streams?.map { it.toDomain() } ?: emptyList()
+    }
+
+    override suspend fun fetchEpisode(seriesId: Int, season: Int, episode: Int): List<StreamingSource>? {
+        val dto = fetcher.fetch("moviebox&tmdbId=$seriesId&type=tv&season=$season&episode=$episode") { ProviderJsonReader.readMovieBox(it) } ?: return null
+        return dto.streams?.map { it.toDomain() } ?: emptyList()
+    }
+}
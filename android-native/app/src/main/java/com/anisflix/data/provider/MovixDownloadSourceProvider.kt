@@ -0,0 +1,34 @@
+package com.anisflix.data.provider
+
+import com.anisflix.data.mapper.toDomain
+import com.anisflix.data.remote.ProxyFetcher
+import com.anisflix.data.remote.dto.MovixDownloadResponse
+import com.anisflix.domain.model.StreamingSource
+import com.google.gson.Gson
+import javax.inject.Inject
+
+// Movix download mirrors (films/download, series/download)
+class MovixDownloadSourceProvider @Inject constructor(
+    private val fetcher: ProxyFetcher,
+    private val gson: Gson
+) : SourceProvider {
+
+    override val name = "movix_download"
+    override val priority = 50
+    override val maxConcurrency = 2
+    override val timeoutMs = 6_000L
+    override val directStreams = true
+
+    override suspend fun fetchMovie(movieId: Int): List<StreamingSource>? {
+        return fetchSources("films/download/$movieId")
+    }
+
+    override suspend fun fetchEpisode(seriesId: Int, season: Int, episode: Int): List<StreamingSource>? {
+        return fetchSources("series/download/$seriesId/season/$season/episode/$episode")
+    }
+
+    private suspend fun fetchSources(path: String): List<StreamingSource>? {
+        val dto = fetcher.fetch(path) { gson.fromJson<MovixDownloadResponse>(it, MovixDownloadResponse::class.java) } ?: return null
+        return dto.sources?.map { it.toDomain() }?.filter { it.url.isNotEmpty() } ?: emptyList()
+    }
+}
@@ -0,0 +1,159 @@
+package com.anisflix.data.provider
+
+import android.os.SystemClock
+import javax.inject.Inject
+import javax.inject.Singleton
+
+enum class CircuitState {
+    CLOSED,    // Healthy: requests go through
+    OPEN,      // Failing: requests are skipped until the cool-down ends
+    HALF_OPEN  // Cool-down over: a single probe decides whether to close or reopen
+}
+
+enum class FetchOutcome {
+    SUCCESS, EMPTY, FAILURE // FAILURE covers errors and timeouts
+}
+
+enum class Admission {
+    ALLOW, // Fetch normally
+    PROBE, // Fetch once in the background to test recovery; don't make the user wait on it
+    SKIP   // Circuit open: don't call the provider
+}
+
+data class ProviderStats(
+    val provider: String,
+    val samples: Int,
+    val successRate: Double,
+    val emptyRate: Double,
+    val p50LatencyMs: Long,
+    val p95LatencyMs: Long,
+    val state: CircuitState
+)
+
+/**
+ * Rolling per-provider health (last [WINDOW] calls) driving a circuit breaker for the source fan-out.
+ */
+@Singleton
+class ProviderHealthTracker @Inject constructor() {
+
+    private class Sample(val latencyMs: Long, val outcome: FetchOutcome)
+
+    private class Health {
+        val samples = ArrayDeque<Sample>(WINDOW)
+        var state = CircuitState.CLOSED
+        var consecutiveFailures = 0
+        var openedAt = 0L
+        var openDurationMs = BASE_OPEN_MS
+        var probeInFlight = false
+    }
+
+    private val providers = HashMap<String, Health>()
+
+    fun admit(provider: String): Admission = synchronized(providers) {
+        val health = providers[provider] ?: return Admission.ALLOW
+        when (health.state) {
+            CircuitState.CLOSED -> Admission.ALLOW
+            CircuitState.OPEN -> {
+                if (SystemClock.elapsedRealtime() - health.openedAt < health.openDurationMs) {
+                    Admission.SKIP
+                } else {
+                    health.state = CircuitState.HALF_OPEN
+                    health.probeInFlight = true
+                    Admission.PROBE
+                }
+            }
+            CircuitState.HALF_OPEN -> {
+                if (health.probeInFlight) Admission.SKIP else {
+                    health.probeInFlight = true
+                    Admission.PROBE
+                }
+            }
+        }
+    }
+
+    fun record(provider: String, latencyMs: Long, outcome: FetchOutcome) {
+        synchronized(providers) { recordLocked(provider, latencyMs, outcome) }
+    }
+
+    // A call that ended without an outcome (cancelled): frees the half-open probe slot, no sample
+    fun release(provider: String) {
+        synchronized(providers) { providers[provider]?.probeInFlight = false }
+    }
+
+    private fun recordLocked(provider: String, latencyMs: Long, outcome: FetchOutcome) {
+        val health = providers.getOrPut(provider) { Health() }
+        if (health.samples.size == WINDOW) health.samples.removeFirst()
+        health.samples.addLast(Sample(latencyMs, outcome))
+
+        if (outcome == FetchOutcome.FAILURE) health.consecutiveFailures++ else health.consecutiveFailures = 0
+
+        when (health.state) {
+            CircuitState.HALF_OPEN -> {
+                health.probeInFlight = false
+                if (outcome == FetchOutcome.FAILURE) {
+                    // Still down: back off further
+                    open(health, (health.openDurationMs * 2).coerceAtMost(MAX_OPEN_MS))
+                } else {
+                    health.state = CircuitState.CLOSED
+                    health.openDurationMs = BASE_OPEN_MS
+                    health.samples.clear()
+                }
+            }
+            CircuitState.CLOSED -> {
+                if (health.consecutiveFailures >= MAX_CONSECUTIVE_FAILURES || failureRate(health) >= FAILURE_RATE_TO_OPEN) {
+                    open(health, BASE_OPEN_MS)
+                }
+            }
+            CircuitState.OPEN -> Unit // Late result from before the circuit opened
+        }
+    }
+
+    fun stats(provider: String): ProviderStats? = synchronized(providers) {
+        providers[provider]?.let { toStats(provider, it) }
+    }
+
+    fun allStats(): List<ProviderStats> = synchronized(providers) {
+        providers.map { (name, health) -> toStats(name, health) }
+    }
+
+    private fun open(health: Health, durationMs: Long) {
+        health.state = CircuitState.OPEN
+        health.openedAt = SystemClock.elapsedRealtime()
+        health.openDurationMs = durationMs
+    }
+
+    private fun failureRate(health: Health): Double {
+        if (health.samples.size < MIN_SAMPLES) return 0.0
+        return health.samples.count { it.outcome == FetchOutcome.FAILURE }.toDouble() / health.samples.size
+    }
+
+    private fun toStats(provider: String, health: Health): ProviderStats {
+        val samples = health.samples
+        val latencies = samples.map { it.latencyMs }.sorted()
+        val size = samples.size.coerceAtLeast(1)
+        return ProviderStats(
+            provider = provider,
+            samples = samples.size,
+            successRate = samples.count { it.outcome == FetchOutcome.SUCCESS }.toDouble() / size,
+            emptyRate = samples.count { it.outcome == FetchOutcome.EMPTY }.toDouble() / size,
+            p50LatencyMs = percentile(latencies, 0.50),
+            p95LatencyMs = percentile(latencies, 0.95),
+            state = health.state
+        )
+    }
+
+    private fun percentile(sorted: List<Long>, p: Double): Long {
+        if (sorted.isEmpty()) return 0L
+        val index = (p * (sorted.size - 1)).toInt()
+        return sorted[index]
+    }
+
+    companion object {
+        private const val WINDOW = 50
+        private const val MIN_SAMPLES = 10
+        private const val FAILURE_RATE_TO_OPEN = 0.5
+        private const val MAX_CONSECUTIVE_FAILURES = 5
+        private const val BASE_OPEN_MS = 60_000L
+        private const val MAX_OPEN_MS = 15 * 60_000L
+    }
+}
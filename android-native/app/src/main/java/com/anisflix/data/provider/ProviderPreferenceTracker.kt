@@ -0,0 +1,87 @@
+package com.anisflix.data.provider
+
+import android.content.Context
+import com.anisflix.domain.model.SourceIndex
+import com.anisflix.domain.model.StreamingSource
+import com.anisflix.domain.repository.ContentLanguage
+import dagger.hilt.android.qualifiers.ApplicationContext
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Which providers tend to have which languages, and which provider the user plays from. Drives
+ * the preferred-first lookup in StreamingRepositoryImpl. Persisted across restarts.
+ */
+@Singleton
+class ProviderPreferenceTracker @Inject constructor(
+    @ApplicationContext context: Context
+) {
+
+    // Per provider: answers that contained each language (ContentLanguage order), then all answers
+    private class Yield(val hits: IntArray = IntArray(ContentLanguage.values().size), var total: Int = 0)
+
+    private val prefs = context.getSharedPreferences("provider_preferences", Context.MODE_PRIVATE)
+    private val yields = HashMap<String, Yield>()
+    @Volatile private var lastPlayedProvider: String? = prefs.getString(KEY_LAST_PLAYED, null)
+
+    init {
+        prefs.all.forEach { (key, value) ->
+            if (key.startsWith(YIELD_PREFIX) && value is String) {
+                parseYield(value)?.let { yields[key.removePrefix(YIELD_PREFIX)] = it }
+            }
+        }
+    }
+
+    // Called with every non-failed provider answer
+    fun recordYield(provider: String, sources: List<StreamingSource>) {
+        val encoded = synchronized(yields) {
+            val yield = yields.getOrPut(provider) { Yield() }
+            sources.mapTo(HashSet()) { SourceIndex.languageOf(it) }.forEach { yield.hits[it.ordinal]++ }
+            yield.total++
+            // Halve old counts so a provider that changes its catalogue is re-learned
+            if (yield.total >= MAX_SAMPLES) {
+                for (i in yield.hits.indices) yield.hits[i] /= 2
+                yield.total /= 2
+            }
+            encode(yield)
+        }
+        prefs.edit().putString(YIELD_PREFIX + provider, encoded).apply()
+    }
+
+    fun recordPlayed(provider: String) {
+        lastPlayedProvider = provider
+        prefs.edit().putString(KEY_LAST_PLAYED, provider).apply()
+    }
+
+    /**
+     * [providers] reordered for a lookup in [language]: the last provider played from first, then
+     * by how often each one had that language. Ties (and unknown providers) keep their order.
+     */
+    fun order(providers: List<String>, language: ContentLanguage): List<String> {
+        val lastPlayed = lastPlayedProvider
+        val scores = synchronized(yields) {
+            providers.associateWith { name ->
+                val yield = yields[name]
+                // Laplace-smoothed, so a provider with no history scores 0.5
+                if (yield == null) 0.5 else (yield.hits[language.ordinal] + 1.0) / (yield.total + 2.0)
+            }
+        }
+        return providers.sortedWith(
+            compareByDescending<String> { it == lastPlayed }.thenByDescending { scores.getValue(it) }
+        )
+    }
+
+    private fun encode(yield: Yield): String = (yield.hits.toList() + yield.total).joinToString(",")
+
+    private fun parseYield(value: String): Yield? {
+        val parts = value.split(',').map { it.toIntOrNull() ?: return null }
+        if (parts.size != ContentLanguage.values().size + 1) return null
+        return Yield(parts.dropLast(1).toIntArray(), parts.last())
+    }
+
+    companion object {
+        private const val KEY_LAST_PLAYED = "last_played_provider"
+        private const val YIELD_PREFIX = "yield_"
+        private const val MAX_SAMPLES = 200
+    }
+}
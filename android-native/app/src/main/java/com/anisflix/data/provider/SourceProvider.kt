@@ -0,0 +1,32 @@
+package com.anisflix.data.provider
+
+import com.anisflix.domain.model.StreamingSource
+
+/**
+ * One upstream in the source fan-out. Implementations are registered in ProviderModule and
+ * queried by StreamingRepositoryImpl through SourceProviderRegistry.
+ *
+ * Fetch functions return null when the request failed, and an empty list when the provider
+ * answered but has nothing for the title.
+ */
+interface SourceProvider {
+    val name: String
+
+    // Lower comes first in the merged source list and gets fetch slots first
+    val priority: Int
+
+    // Concurrent requests allowed to this provider across all lookups
+    val maxConcurrency: Int
+
+    // Deadline for one request before the lookup stops waiting on it
+    val timeoutMs: Long
+
+    // True when every source is a direct stream; otherwise only known embed hosts are kept
+    val directStreams: Boolean
+
+    val supportsMovies: Boolean get() = true
+    val supportsEpisodes: Boolean get() = true
+
+    suspend fun fetchMovie(movieId: Int): List<StreamingSource>?
+    suspend fun fetchEpisode(seriesId: Int, season: Int, episode: Int): List<StreamingSource>?
+}
@@ -0,0 +1,28 @@
+package com.anisflix.data.provider
+
+import com.anisflix.data.remote.ProxyRequestScheduler
+import javax.inject.Inject
+import javax.inject.Singleton
+
+@Singleton
+class SourceProviderRegistry @Inject constructor(
+    providers: Set<@JvmSuppressWildcards SourceProvider>,
+    private val scheduler: ProxyRequestScheduler
+) {
+
+    val providers: List<SourceProvider> = providers.sortedBy { it.priority }
+
+    private val byName = this.providers.associateBy { it.name }
+
+    fun get(name: String): SourceProvider? = byName[name]
+
+    fun movieProviders(): List<SourceProvider> = providers.filter { it.supportsMovies }
+
+    fun episodeProviders(): List<SourceProvider> = providers.filter { it.supportsEpisodes }
+
+    // Each provider is its own scheduler lane, capped at its maxConcurrency. Within a request
+    // priority, lookups launched in provider order get slots in that order.
+    suspend fun <T> withPermits(provider: SourceProvider, block: suspend () -> T): T {
+        return scheduler.schedule(provider.name, provider.maxConcurrency, block)
+    }
+}
@@ -0,0 +1,33 @@
+package com.anisflix.data.provider
+
+import com.anisflix.data.mapper.toDomain
+import com.anisflix.data.remote.ProxyFetcher
+import com.anisflix.data.remote.parser.ProviderJsonReader
+import com.anisflix.domain.model.StreamingSource
+import javax.inject.Inject
+
+// Movix "tmdb" links: embed hosts (vidmoly, vidzy, ...) aggregated by TMDB ID
+class TmdbSourceProvider @Inject constructor(
+    private val fetcher: ProxyFetcher
+) : SourceProvider {
+
+    override val name = "tmdb"
+    override val priority = 0
+    override val maxConcurrency = 4
+    override val timeoutMs = 6_000L
+    override val directStreams = false
+
+    override suspend fun fetchMovie(movieId: Int): List<StreamingSource>? {
+        return fetchLinks("tmdb/movie/$movieId")
+    }
+
+    override suspend fun fetchEpisode(seriesId: Int, season: Int, episode: Int): List<StreamingSource>? {
+        return fetchLinks("tmdb/tv/$seriesId?season=$season&episode=$episode")
+    }
+
+    // An answer without player_links means nothing for this title, not a failed request
+    private suspend fun fetchLinks(path: String): List<StreamingSource>? {
+        val links = fetcher.fetch(path) { ProviderJsonReader.readPlayerLinks(it).orEmpty() } ?: return null
+        return links.map { it.toDomain("tmdb") }
+    }
+}
@@ -0,0 +1,34 @@
+package com.anisflix.data.provider
+
+import com.anisflix.data.mapper.toDomain
+import com.anisflix.data.remote.ProxyFetcher
+import com.anisflix.data.remote.dto.UniversalVOResponse
+import com.anisflix.domain.model.StreamingSource
+import com.google.gson.Gson
+import javax.inject.Inject
+
+// Extracted VO files (direct m3u8/mp4), mostly English audio
+class UniversalVOSourceProvider @Inject constructor(
+    private val fetcher: ProxyFetcher,
+    private val gson: Gson
+) : SourceProvider {
+
+    override val name = "universalvo"
+    override val priority = 30
+    override val maxConcurrency = 2
+    override val timeoutMs = 7_000L
+    override val directStreams = true
+
+    override suspend fun fetchMovie(movieId: Int): List<StreamingSource>? {
+        return fetchFiles("universalvo&tmdbId=$movieId&type=movie")
+    }
+
+    override suspend fun fetchEpisode(seriesId: Int, season: Int, episode: Int): List<StreamingSource>? {
+        return fetchFiles("universalvo&tmdbId=$seriesId&type=tv&season=$season&episode=$episode")
+    }
+
+    private suspend fun fetchFiles(path: String): List<StreamingSource>? {
+        val dto = fetcher.fetch(path) { gson.fromJson<UniversalVOResponse>(it, UniversalVOResponse::class.java) } ?: return null
+        return dto.files?.map { it.toDomain() } ?: emptyList()
+    }
+}
@@ -0,0 +1,176 @@
+package com.anisflix.data.remote
+
+import okhttp3.Dns
+import java.io.File
+import java.io.IOException
+import java.net.InetAddress
+import java.net.UnknownHostException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+data class DnsCacheConfig(
+    val maxEntries: Int = 256,
+    // The platform resolver doesn't expose record TTLs: every answer gets this lifetime
+    val ttlMs: Long = 5 * 60_000L,
+    // Within this much of expiry, a lookup is answered from cache and refreshed in the background
+    val refreshAheadMs: Long = 60_000L,
+    // How long past expiry an answer may still be served when the resolver fails
+    val staleMs: Long = 24 * 60 * 60_000L
+)
+
+/**
+ * OkHttp [Dns] keeping answers in a bounded LRU: fresh answers skip the resolver, answers close to
+ * expiry are refreshed in the background, and when the resolver fails an expired answer (within
+ * [DnsCacheConfig.staleMs]) is served instead of the error. With a [store] file the cache survives
+ * restarts; persisted answers are only used as fresh until their original expiry.
+ */
+class CachingDns(
+    private val delegate: Dns = Dns.SYSTEM,
+    private val config: DnsCacheConfig = DnsCacheConfig(),
+    private val store: File? = null,
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val executor: Executor = defaultExecutor()
+) : Dns {
+
+    private class Answer(val addresses: List<InetAddress>, val expiresAt: Long)
+
+    // Access-ordered: the eldest entry is the least recently used
+    private val entries = object : LinkedHashMap<String, Answer>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Answer>): Boolean {
+            return size > config.maxEntries
+        }
+    }
+    private val refreshing = ConcurrentHashMap.newKeySet<String>()
+    private val persistScheduled = AtomicBoolean()
+    private val writeLock = Any()
+
+    @Volatile
+    private var loaded = store == null
+
+    override fun lookup(hostname: String): List<InetAddress> {
+        if (!loaded) load()
+        val now = clock()
+        val entry = synchronized(entries) { entries[hostname] }
+
+        if (entry != null && now < entry.expiresAt) {
+            if (entry.expiresAt - now <= config.refreshAheadMs) refreshInBackground(hostname)
+            return entry.addresses
+        }
+
+        return try {
+            resolve(hostname)
+        } catch (e: UnknownHostException) {
+            // Flaky network: the last known answer beats failing the request
+            if (entry != null && now - entry.expiresAt <= config.staleMs) entry.addresses else throw e
+        }
+    }
+
+    fun clear() {
+        synchronized(entries) { entries.clear() }
+        persist()
+    }
+
+    private fun resolve(hostname: String): List<InetAddress> {
+        val addresses = delegate.lookup(hostname)
+        if (addresses.isEmpty()) throw UnknownHostException("No address for $hostname")
+        synchronized(entries) { entries[hostname] = Answer(addresses, clock() + config.ttlMs) }
+        persist()
+        return addresses
+    }
+
+    private fun refreshInBackground(hostname: String) {
+        if (!refreshing.add(hostname)) return
+        try {
+            executor.execute {
+                try {
+                    resolve(hostname)
+                } catch (e: UnknownHostException) {
+                    // Keep the current answer until it expires
+                } finally {
+                    refreshing.remove(hostname)
+                }
+            }
+        } catch (e: RejectedExecutionException) {
+            refreshing.remove(hostname)
+        }
+    }
+
+    // --- Persistence ---
+    // One line per host: "hostname<TAB>expiresAt<TAB>ip,ip,..."
+
+    private fun load() {
+        val file = store ?: return
+        synchronized(entries) {
+            if (loaded) return
+            loaded = true
+            if (!file.exists()) return
+            try {
+                file.forEachLine { line ->
+                    val parts = line.split('\t')
+                    if (parts.size != 3) return@forEachLine
+                    val hostname = parts[0]
+                    val expiresAt = parts[1].toLongOrNull() ?: return@forEachLine
+                    // IP literals: no lookup happens here
+                    val addresses = parts[2].split(',').filter { it.isNotEmpty() }
+                        .map { InetAddress.getByAddress(hostname, InetAddress.getByName(it).address) }
+                    if (addresses.isNotEmpty()) entries[hostname] = Answer(addresses, expiresAt)
+                }
+            } catch (e: Exception) {
+                e.printStackTrace()
+                file.delete()
+            }
+        }
+    }
+
+    // Coalesced: answers resolved while a write is pending go out with it
+    private fun persist() {
+        val file = store ?: return
+        if (!persistScheduled.compareAndSet(false, true)) return
+        try {
+            executor.execute {
+                persistScheduled.set(false)
+                write(file)
+            }
+        } catch (e: RejectedExecutionException) {
+            persistScheduled.set(false) // Shutting down; the next write covers it
+        }
+    }
+
+    private fun write(file: File) {
+        synchronized(writeLock) {
+            val snapshot = synchronized(entries) { entries.map { (hostname, entry) -> hostname to entry } }
+            try {
+                val tmp = File(file.path + ".tmp")
+                tmp.bufferedWriter().use { writer ->
+                    for ((hostname, entry) in snapshot) {
+                        writer.write("$hostname\t${entry.expiresAt}\t")
+                        writer.write(entry.addresses.joinToString(",") { it.hostAddress.orEmpty() })
+                        writer.newLine()
+                    }
+                }
+                tmp.renameTo(file)
+            } catch (e: IOException) {
+                e.printStackTrace()
+            }
+        }
+    }
+
+    companion object {
+        private const val REFRESH_THREADS = 2
+        private const val REFRESH_QUEUE_SIZE = 32
+
+        // Bounded: a burst of hosts nearing expiry queues up, and past the queue the refresh is
+        // skipped (the host is resolved in line once it expires)
+        private fun defaultExecutor(): Executor = ThreadPoolExecutor(
+            REFRESH_THREADS, REFRESH_THREADS, 30L, TimeUnit.SECONDS,
+            LinkedBlockingQueue(REFRESH_QUEUE_SIZE)
+        ) { runnable ->
+            Thread(runnable, "dns-refresh").apply { isDaemon = true }
+        }.apply { allowCoreThreadTimeOut(true) }
+    }
+}
@@ -0,0 +1,79 @@
+package com.anisflix.data.remote
+
+import android.os.SystemClock
+import com.anisflix.domain.repository.ConnectionWarmer
+import com.anisflix.utils.Constants
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.HttpUrl
+import okhttp3.HttpUrl.Companion.toHttpUrlOrNull
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Pays DNS, TCP and TLS setup ahead of time: a HEAD request to a host's root leaves an open
+ * connection in the shared pool for the real request to pick up. NetworkMetrics.prewarmStats()
+ * tells how many of them actually got used.
+ */
+@Singleton
+class ConnectionPrewarmer @Inject constructor(
+    private val okHttpClient: OkHttpClient
+) : ConnectionWarmer {
+
+    // Request tag marking warm-up calls, kept out of the regular metrics
+    object Prewarm
+
+    // Origin -> when it was last warmed
+    private val lastWarmed = ConcurrentHashMap<String, Long>()
+
+    override fun warmCriticalHosts() {
+        warm(CRITICAL_URLS)
+    }
+
+    override fun warm(urls: List<String>) {
+        urls.mapNotNull { it.toHttpUrlOrNull() }
+            .map { HttpUrl.Builder().scheme(it.scheme).host(it.host).port(it.port).build() }
+            .distinct()
+            .forEach { warmOrigin(it) }
+    }
+
+    private fun warmOrigin(origin: HttpUrl) {
+        val key = origin.toString()
+        val now = SystemClock.elapsedRealtime()
+        // Still in the pool from the last time (connections idle out after the keep-alive)
+        val last = lastWarmed[key]
+        if (last != null && now - last < REWARM_AFTER_MS) return
+        lastWarmed[key] = now
+
+        val request = Request.Builder()
+            .url(origin)
+            .head()
+            .tag(Prewarm::class.java, Prewarm)
+            .build()
+        okHttpClient.newCall(request).enqueue(object : Callback {
+            override fun onFailure(call: Call, e: IOException) {
+                lastWarmed.remove(key, now)
+            }
+
+            override fun onResponse(call: Call, response: Response) {
+                response.close() // Whatever the status, the connection is open
+            }
+        })
+    }
+
+    companion object {
+        // Below the pool's keep-alive (NetworkModule)
+        private const val REWARM_AFTER_MS = 4 * 60_000L
+
+        private val CRITICAL_URLS = listOf(
+            Constants.TMDB_BASE_URL,
+            Constants.TMDB_IMAGE_BASE_URL,
+            Constants.MOVIX_UPSTREAM_URL
+        ) + Constants.PROXY_MIRROR_URLS
+    }
+}
@@ -0,0 +1,219 @@
+package com.anisflix.data.remote
+
+import android.os.SystemClock
+import okhttp3.HttpUrl.Companion.toHttpUrl
+import okhttp3.Interceptor
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.net.ConnectException
+import java.net.NoRouteToHostException
+import java.net.UnknownHostException
+import javax.net.ssl.SSLHandshakeException
+
+data class MirrorStats(
+    val baseUrl: String,
+    val samples: Int,
+    val latencyEwmaMs: Map<String, Double>, // Per endpoint class
+    val errorEwma: Double,
+    val isDown: Boolean
+)
+
+/**
+ * Interchangeable instances of one API (same paths under different base URLs). Every response
+ * feeds an exponentially weighted moving average of latency and errors per mirror; requests go to
+ * the mirror with the best score. Unmeasured mirrors score best, so each one gets sampled.
+ *
+ * Latency is tracked per endpoint class: a scraper call that takes seconds says nothing about how
+ * fast the same mirror serves metadata. Errors and cool-downs are per mirror. A mirror found not to
+ * serve an endpoint class at all (see [markUnsupported]) is left out of its ranking for a while.
+ */
+class MirrorPool(baseUrls: List<String>) {
+
+    private class Latency {
+        var samples = 0
+        var ewmaMs = 0.0
+    }
+
+    private class Mirror(val baseUrl: String) {
+        var samples = 0
+        val latency = HashMap<String, Latency>()
+        var errorEwma = 0.0
+        var downUntil = 0L
+        // Endpoint class -> until when this mirror is known not to serve it
+        val unsupportedUntil = HashMap<String, Long>()
+    }
+
+    init {
+        require(baseUrls.isNotEmpty()) { "A mirror pool needs at least one base URL" }
+    }
+
+    private val mirrors = baseUrls.distinct().map { Mirror(it) }
+
+    // The base URL requests are built against (the Retrofit base URL)
+    val primary: String = mirrors.first().baseUrl
+
+    // With a single instance there is nothing to rank or fail over to
+    val canFailOver: Boolean get() = mirrors.size > 1
+
+    // Best first for [endpointClass]; mirrors in cool-down after a connect failure go last, mirrors
+    // that don't serve it are left out
+    fun ranked(endpointClass: String = DEFAULT_ENDPOINT_CLASS): List<String> = synchronized(this) {
+        val now = SystemClock.elapsedRealtime()
+        mirrors.filter { it.serves(endpointClass, now) }
+            .sortedWith(compareBy<Mirror>({ it.downUntil > now }, { score(it, endpointClass) }, { it.downUntil }))
+            .map { it.baseUrl }
+    }
+
+    // False while every mirror is known not to serve [endpointClass]
+    fun serves(endpointClass: String): Boolean = synchronized(this) {
+        val now = SystemClock.elapsedRealtime()
+        mirrors.any { it.serves(endpointClass, now) }
+    }
+
+    // [baseUrl] answered that it has no such route: other mirrors get [endpointClass] until it's retried
+    fun markUnsupported(baseUrl: String, endpointClass: String) {
+        synchronized(this) {
+            val mirror = mirrors.firstOrNull { it.baseUrl == baseUrl } ?: return
+            mirror.unsupportedUntil[endpointClass] = SystemClock.elapsedRealtime() + UNSUPPORTED_RETRY_MS
+        }
+    }
+
+    fun recordSuccess(baseUrl: String, latencyMs: Long, endpointClass: String = DEFAULT_ENDPOINT_CLASS) {
+        update(baseUrl) { mirror ->
+            recordLatency(mirror, endpointClass, latencyMs)
+            mirror.errorEwma = ewma(mirror.errorEwma, 0.0)
+            mirror.downUntil = 0L
+        }
+    }
+
+    // An answer that isn't usable (5xx) or a failed exchange; [unreachable] when no connection could be made
+    fun recordFailure(baseUrl: String, latencyMs: Long, unreachable: Boolean, endpointClass: String = DEFAULT_ENDPOINT_CLASS) {
+        update(baseUrl) { mirror ->
+            val latency = mirror.latency.getOrPut(endpointClass) { Latency() }
+            if (latency.samples == 0) recordLatency(mirror, endpointClass, latencyMs)
+            mirror.errorEwma = ewma(mirror.errorEwma, 1.0)
+            if (unreachable) mirror.downUntil = SystemClock.elapsedRealtime() + DOWN_COOLDOWN_MS
+        }
+    }
+
+    fun stats(): List<MirrorStats> = synchronized(this) {
+        val now = SystemClock.elapsedRealtime()
+        mirrors.map { mirror ->
+            MirrorStats(
+                baseUrl = mirror.baseUrl,
+                samples = mirror.samples,
+                latencyEwmaMs = mirror.latency.mapValues { it.value.ewmaMs },
+                errorEwma = mirror.errorEwma,
+                isDown = mirror.downUntil > now
+            )
+        }
+    }
+
+    private fun recordLatency(mirror: Mirror, endpointClass: String, latencyMs: Long) {
+        val latency = mirror.latency.getOrPut(endpointClass) { Latency() }
+        latency.ewmaMs = if (latency.samples == 0) latencyMs.toDouble() else ewma(latency.ewmaMs, latencyMs.toDouble())
+        latency.samples++
+    }
+
+    private fun Mirror.serves(endpointClass: String, now: Long): Boolean {
+        val until = unsupportedUntil[endpointClass] ?: return true
+        return now >= until
+    }
+
+    private inline fun update(baseUrl: String, block: (Mirror) -> Unit) {
+        synchronized(this) {
+            val mirror = mirrors.firstOrNull { it.baseUrl == baseUrl } ?: return
+            block(mirror)
+            mirror.samples++
+        }
+    }
+
+    private fun score(mirror: Mirror, endpointClass: String): Double {
+        val latency = mirror.latency[endpointClass] ?: return 0.0
+        if (latency.samples == 0) return 0.0
+        return latency.ewmaMs * (1.0 + ERROR_WEIGHT * mirror.errorEwma)
+    }
+
+    private fun ewma(current: Double, sample: Double): Double = current + ALPHA * (sample - current)
+
+    companion object {
+        const val DEFAULT_ENDPOINT_CLASS = "default"
+
+        private const val ALPHA = 0.2
+        // An instance failing every request counts as (1 + ERROR_WEIGHT) times slower
+        private const val ERROR_WEIGHT = 4.0
+        private const val DOWN_COOLDOWN_MS = 30_000L
+        private const val UNSUPPORTED_RETRY_MS = 30 * 60_000L
+    }
+}
+
+/**
+ * Sends each request to the best mirror of [pool] for its endpoint class, timing it passively, and
+ * fails over to the next one when a mirror can't be reached. Requests that may have been processed
+ * (a read timeout on a POST) are not replayed.
+ *
+ * [optionalRoutes] are endpoint classes some mirrors don't serve: a 404/405/501 there means the
+ * route is missing, so the mirror is marked as not serving it and the next one is tried. Only worth
+ * installing when [MirrorPool.canFailOver] or with optional routes.
+ */
+class MirrorPoolInterceptor(
+    private val pool: MirrorPool,
+    private val endpointClassOf: (Request) -> String = { MirrorPool.DEFAULT_ENDPOINT_CLASS },
+    private val optionalRoutes: Set<String> = emptySet()
+) : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val url = request.url.toString()
+        if (!url.startsWith(pool.primary)) return chain.proceed(request)
+        val endpointClass = endpointClassOf(request)
+        val optional = endpointClass in optionalRoutes
+        if (!pool.canFailOver && !optional) return chain.proceed(request)
+        val relative = url.removePrefix(pool.primary)
+
+        val candidates = pool.ranked(endpointClass)
+        if (candidates.isEmpty()) throw IOException("No mirror serves $endpointClass")
+        var lastError: IOException? = null
+        candidates.forEachIndexed { index, baseUrl ->
+            val isLast = index == candidates.lastIndex
+            val started = SystemClock.elapsedRealtime()
+            try {
+                val response = chain.proceed(request.newBuilder().url((baseUrl + relative).toHttpUrl()).build())
+                val latencyMs = SystemClock.elapsedRealtime() - started
+                if (optional && response.code in ROUTE_MISSING_STATUSES) {
+                    // Nothing was processed: safe to replay on the next mirror, whatever the method
+                    pool.markUnsupported(baseUrl, endpointClass)
+                    if (isLast) return response
+                    response.close()
+                    return@forEachIndexed
+                }
+                if (response.code !in UNAVAILABLE_STATUSES) {
+                    pool.recordSuccess(baseUrl, latencyMs, endpointClass)
+                    return response
+                }
+                pool.recordFailure(baseUrl, latencyMs, unreachable = false, endpointClass = endpointClass)
+                // A dead instance behind a gateway: worth another mirror when replaying is safe
+                if (isLast || request.method != "GET") return response
+                response.close()
+            } catch (e: IOException) {
+                if (chain.call().isCanceled()) throw e
+                val unreachable = isConnectFailure(e)
+                pool.recordFailure(baseUrl, SystemClock.elapsedRealtime() - started, unreachable, endpointClass)
+                if (!unreachable && request.method != "GET") throw e
+                lastError = e
+            }
+        }
+        throw lastError ?: IOException("No mirror answered")
+    }
+
+    // Nothing reached the server: always safe to retry elsewhere
+    private fun isConnectFailure(e: IOException): Boolean {
+        return e is ConnectException || e is UnknownHostException || e is NoRouteToHostException || e is SSLHandshakeException
+    }
+
+    companion object {
+        private val UNAVAILABLE_STATUSES = setOf(502, 503, 504)
+        private val ROUTE_MISSING_STATUSES = setOf(404, 405, 501)
+    }
+}
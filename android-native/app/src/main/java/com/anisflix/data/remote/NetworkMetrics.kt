@@ -0,0 +1,328 @@
+package com.anisflix.data.remote
+
+import okhttp3.Call
+import okhttp3.Connection
+import okhttp3.EventListener
+import okhttp3.Handshake
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import retrofit2.Invocation
+import java.io.IOException
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.Collections
+import java.util.WeakHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+data class LatencySummary(
+    val count: Long,
+    val meanMs: Long,
+    val p50Ms: Long,
+    val p95Ms: Long
+)
+
+data class NetworkStats(
+    val key: String, // Host, or "host Interface.method" for Retrofit endpoints
+    val requests: Long,
+    val failures: Long,
+    val cacheHits: Long,
+    val connectionReuseRate: Double, // Calls served on an already open connection
+    val bytesSent: Long,
+    val bytesReceived: Long,
+    val dns: LatencySummary,
+    val connect: LatencySummary,
+    val tls: LatencySummary,
+    val ttfb: LatencySummary, // Request sent -> response headers
+    val body: LatencySummary,
+    val total: LatencySummary
+)
+
+data class PrewarmStats(
+    val warmed: Long, // Connections opened by ConnectionPrewarmer
+    val reused: Long  // Of those, picked up by a real request
+) {
+    val reuseRate: Double get() = if (warmed == 0L) 0.0 else reused.toDouble() / warmed
+}
+
+/**
+ * Per-host and per-endpoint network timings, fed by [EventListenerFactory] on every OkHttp call.
+ * Phases that didn't happen on a call (DNS, connect and TLS on a reused connection) aren't
+ * recorded for it.
+ */
+@Singleton
+class NetworkMetrics @Inject constructor() {
+
+    // Millisecond buckets; durations land in the first bucket they don't exceed
+    private class Histogram {
+        val counts = LongArray(BUCKETS_MS.size + 1)
+        var count = 0L
+        var sumMs = 0L
+
+        fun record(ms: Long) {
+            var index = BUCKETS_MS.indexOfFirst { ms <= it }
+            if (index < 0) index = BUCKETS_MS.size
+            counts[index]++
+            count++
+            sumMs += ms
+        }
+
+        // Upper bound of the bucket holding the percentile (the last finite one past the table)
+        fun percentile(p: Double): Long {
+            if (count == 0L) return 0L
+            val target = (p * count).toLong().coerceIn(1L, count)
+            var seen = 0L
+            counts.forEachIndexed { index, bucketCount ->
+                seen += bucketCount
+                if (seen >= target) return BUCKETS_MS.getOrElse(index) { BUCKETS_MS.last() }
+            }
+            return BUCKETS_MS.last()
+        }
+
+        fun summary() = LatencySummary(
+            count = count,
+            meanMs = if (count == 0L) 0L else sumMs / count,
+            p50Ms = percentile(0.50),
+            p95Ms = percentile(0.95)
+        )
+    }
+
+    private class Aggregate {
+        var requests = 0L
+        var failures = 0L
+        var cacheHits = 0L
+        var reused = 0L
+        var bytesSent = 0L
+        var bytesReceived = 0L
+        val dns = Histogram()
+        val connect = Histogram()
+        val tls = Histogram()
+        val ttfb = Histogram()
+        val body = Histogram()
+        val total = Histogram()
+    }
+
+    // What one call measured; -1 for phases that didn't happen
+    class CallSample(
+        val host: String,
+        val endpoint: String?,
+        val failed: Boolean,
+        val cacheHit: Boolean,
+        val reusedConnection: Boolean,
+        val bytesSent: Long,
+        val bytesReceived: Long,
+        val dnsMs: Long,
+        val connectMs: Long,
+        val tlsMs: Long,
+        val ttfbMs: Long,
+        val bodyMs: Long,
+        val totalMs: Long
+    )
+
+    private val hosts = HashMap<String, Aggregate>()
+    private val endpoints = HashMap<String, Aggregate>()
+
+    // Warmed connections not used yet; weak, the pool decides when they go
+    private val warmConnections = Collections.newSetFromMap(WeakHashMap<Connection, Boolean>())
+    private var warmed = 0L
+    private var warmReused = 0L
+
+    fun record(sample: CallSample) {
+        synchronized(this) {
+            add(hosts.getOrPut(sample.host) { Aggregate() }, sample)
+            if (sample.endpoint != null) {
+                add(endpoints.getOrPut("${sample.host} ${sample.endpoint}") { Aggregate() }, sample)
+            }
+        }
+    }
+
+    fun hostStats(): List<NetworkStats> = synchronized(this) { hosts.map { (key, aggregate) -> toStats(key, aggregate) } }
+
+    fun endpointStats(): List<NetworkStats> = synchronized(this) { endpoints.map { (key, aggregate) -> toStats(key, aggregate) } }
+
+    fun prewarmStats(): PrewarmStats = synchronized(this) { PrewarmStats(warmed, warmReused) }
+
+    fun reset() {
+        synchronized(this) {
+            hosts.clear()
+            endpoints.clear()
+            warmed = 0L
+            warmReused = 0L
+        }
+    }
+
+    private fun onConnectionAcquired(connection: Connection, prewarm: Boolean, opened: Boolean) {
+        synchronized(this) {
+            if (prewarm) {
+                if (opened && warmConnections.add(connection)) warmed++
+            } else if (warmConnections.remove(connection)) {
+                warmReused++
+            }
+        }
+    }
+
+    private fun add(aggregate: Aggregate, sample: CallSample) {
+        aggregate.requests++
+        if (sample.failed) aggregate.failures++
+        if (sample.cacheHit) aggregate.cacheHits++
+        if (sample.reusedConnection) aggregate.reused++
+        aggregate.bytesSent += sample.bytesSent
+        aggregate.bytesReceived += sample.bytesReceived
+        if (sample.dnsMs >= 0) aggregate.dns.record(sample.dnsMs)
+        if (sample.connectMs >= 0) aggregate.connect.record(sample.connectMs)
+        if (sample.tlsMs >= 0) aggregate.tls.record(sample.tlsMs)
+        if (sample.ttfbMs >= 0) aggregate.ttfb.record(sample.ttfbMs)
+        if (sample.bodyMs >= 0) aggregate.body.record(sample.bodyMs)
+        aggregate.total.record(sample.totalMs)
+    }
+
+    private fun toStats(key: String, aggregate: Aggregate) = NetworkStats(
+        key = key,
+        requests = aggregate.requests,
+        failures = aggregate.failures,
+        cacheHits = aggregate.cacheHits,
+        connectionReuseRate = if (aggregate.requests == 0L) 0.0 else aggregate.reused.toDouble() / aggregate.requests,
+        bytesSent = aggregate.bytesSent,
+        bytesReceived = aggregate.bytesReceived,
+        dns = aggregate.dns.summary(),
+        connect = aggregate.connect.summary(),
+        tls = aggregate.tls.summary(),
+        ttfb = aggregate.ttfb.summary(),
+        body = aggregate.body.summary(),
+        total = aggregate.total.summary()
+    )
+
+    inner class EventListenerFactory : EventListener.Factory {
+        override fun create(call: Call): EventListener = CallMetricsListener()
+    }
+
+    // One per call; OkHttp delivers a call's events sequentially
+    private inner class CallMetricsListener : EventListener() {
+        private var callStart = 0L
+        private var dnsStart = 0L
+        private var connectStart = 0L
+        private var tlsStart = 0L
+        private var requestStart = 0L
+        private var bodyStart = 0L
+
+        private var dnsMs = -1L
+        private var connectMs = -1L
+        private var tlsMs = -1L
+        private var ttfbMs = -1L
+        private var bodyMs = -1L
+        private var connected = false
+        private var acquired = false
+        private var cacheHit = false
+        private var bytesSent = 0L
+        private var bytesReceived = 0L
+        // Where the call actually went: interceptors (MirrorPoolInterceptor) may rewrite call.request()
+        private var host: String? = null
+
+        override fun callStart(call: Call) {
+            callStart = System.nanoTime()
+        }
+
+        override fun dnsStart(call: Call, domainName: String) {
+            dnsStart = System.nanoTime()
+            host = domainName
+        }
+
+        override fun dnsEnd(call: Call, domainName: String, inetAddressList: List<InetAddress>) {
+            dnsMs = elapsedMs(dnsStart)
+        }
+
+        override fun connectStart(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy) {
+            connectStart = System.nanoTime()
+            connected = true
+        }
+
+        override fun secureConnectStart(call: Call) {
+            tlsStart = System.nanoTime()
+        }
+
+        override fun secureConnectEnd(call: Call, handshake: Handshake?) {
+            tlsMs = elapsedMs(tlsStart)
+        }
+
+        override fun connectEnd(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy, protocol: Protocol?) {
+            connectMs = elapsedMs(connectStart)
+        }
+
+        override fun connectionAcquired(call: Call, connection: Connection) {
+            acquired = true
+            host = connection.route().address.url.host
+            onConnectionAcquired(connection, prewarm = isPrewarm(call), opened = connected)
+        }
+
+        override fun requestHeadersStart(call: Call) {
+            requestStart = System.nanoTime()
+        }
+
+        override fun requestHeadersEnd(call: Call, request: Request) {
+            bytesSent += request.headers.byteCount()
+        }
+
+        override fun requestBodyEnd(call: Call, byteCount: Long) {
+            bytesSent += byteCount
+        }
+
+        override fun responseHeadersStart(call: Call) {
+            ttfbMs = elapsedMs(requestStart)
+        }
+
+        override fun responseBodyStart(call: Call) {
+            bodyStart = System.nanoTime()
+        }
+
+        override fun responseBodyEnd(call: Call, byteCount: Long) {
+            bodyMs = elapsedMs(bodyStart)
+            bytesReceived += byteCount
+        }
+
+        override fun cacheHit(call: Call, response: Response) {
+            cacheHit = true
+            host = response.request.url.host
+        }
+
+        override fun callEnd(call: Call) {
+            report(call, failed = false)
+        }
+
+        override fun callFailed(call: Call, ioe: IOException) {
+            report(call, failed = true)
+        }
+
+        private fun report(call: Call, failed: Boolean) {
+            if (isPrewarm(call)) return
+            val request = call.request()
+            val invocation = request.tag(Invocation::class.java)
+            record(
+                CallSample(
+                    host = host ?: request.url.host,
+                    endpoint = invocation?.let { "${it.method().declaringClass.simpleName}.${it.method().name}" },
+                    failed = failed,
+                    cacheHit = cacheHit,
+                    reusedConnection = acquired && !connected,
+                    bytesSent = bytesSent,
+                    bytesReceived = bytesReceived,
+                    dnsMs = dnsMs,
+                    connectMs = connectMs,
+                    tlsMs = tlsMs,
+                    ttfbMs = ttfbMs,
+                    bodyMs = bodyMs,
+                    totalMs = elapsedMs(callStart)
+                )
+            )
+        }
+
+        private fun isPrewarm(call: Call): Boolean = call.request().tag(ConnectionPrewarmer.Prewarm::class.java) != null
+
+        private fun elapsedMs(startNanos: Long): Long = (System.nanoTime() - startNanos) / 1_000_000L
+    }
+
+    companion object {
+        private val BUCKETS_MS = longArrayOf(1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000, 30_000)
+    }
+}
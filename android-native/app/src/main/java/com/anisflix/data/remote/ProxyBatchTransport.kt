@@ -0,0 +1,34 @@
+package com.anisflix.data.remote
+
+import com.anisflix.data.remote.api.MovixProxyApi
+import com.anisflix.data.remote.dto.ProxyBatchRequest
+import okhttp3.ResponseBody
+import retrofit2.Response
+
+// Sends one batch lookup. The response body is the sectioned stream described on ProxyBatchRequest
+// (served by POST /api/movix-proxy/batch, server/routes.ts).
+interface ProxyBatchTransport {
+    // False while no proxy is known to serve batches
+    fun isAvailable(): Boolean = true
+
+    suspend fun open(paths: List<String>): Response<ResponseBody>
+}
+
+// Batches go to the proxy mirrors that serve the route: MirrorPoolInterceptor skips (and marks)
+// the ones answering that they don't.
+class RemoteProxyBatchTransport(
+    private val api: MovixProxyApi,
+    private val mirrors: MirrorPool
+) : ProxyBatchTransport {
+
+    override fun isAvailable(): Boolean = mirrors.serves(ENDPOINT_CLASS)
+
+    override suspend fun open(paths: List<String>): Response<ResponseBody> {
+        return api.getBatchResponse(ProxyBatchRequest(paths))
+    }
+
+    companion object {
+        // MirrorPool endpoint class of the batch route
+        const val ENDPOINT_CLASS = "batch"
+    }
+}
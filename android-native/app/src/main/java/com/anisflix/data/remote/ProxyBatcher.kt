@@ -0,0 +1,170 @@
+package com.anisflix.data.remote
+
+import com.anisflix.data.repository.SourceFetchConfig
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runInterruptible
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Coalesces the movix-proxy requests of a fan-out into batch lookups: requests made within
+ * SourceFetchConfig.batchWindowMs go out together, and each caller gets its section as soon as it
+ * streams in. Whatever the batch can't answer (no endpoint, transport error, missing section, a
+ * section the proxy failed with) is handed back to the caller to request on its own. A batch whose callers have all been cancelled
+ * is cancelled too.
+ */
+@Singleton
+class ProxyBatcher @Inject constructor(
+    private val transport: ProxyBatchTransport,
+    private val config: SourceFetchConfig
+) {
+
+    private class Pending(val path: String, val read: (JsonReader) -> Any?) {
+        val result = CompletableDeferred<Any?>()
+        var abandoned = false
+        var batch: Batch? = null
+    }
+
+    private class Batch(val waiters: List<Pending>) {
+        var job: Job? = null
+    }
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    private val lock = Any()
+    private var queue = ArrayList<Pending>()
+    private var flushScheduled = false
+
+    @Suppress("UNCHECKED_CAST")
+    suspend fun <T> fetch(path: String, read: (JsonReader) -> T, individual: suspend () -> T?): T? {
+        if (!transport.isAvailable()) return individual()
+        val pending = Pending(path, read)
+        enqueue(pending)
+        val result = try {
+            pending.result.await()
+        } catch (e: CancellationException) {
+            abandon(pending)
+            throw e
+        }
+        return if (result === FALLBACK) individual() else result as T?
+    }
+
+    private fun enqueue(pending: Pending) {
+        synchronized(lock) {
+            queue.add(pending)
+            if (queue.size >= config.maxBatchSize) {
+                flushLocked()
+            } else if (!flushScheduled) {
+                flushScheduled = true
+                scope.launch {
+                    delay(config.batchWindowMs)
+                    synchronized(lock) { flushLocked() }
+                }
+            }
+        }
+    }
+
+    // The batch keeps running while someone still waits on it
+    private fun abandon(pending: Pending) {
+        synchronized(lock) {
+            pending.abandoned = true
+            if (queue.remove(pending)) return
+            val batch = pending.batch ?: return
+            if (batch.waiters.all { it.abandoned || it.result.isCompleted }) batch.job?.cancel()
+        }
+    }
+
+    private fun flushLocked() {
+        val batch = queue
+        queue = ArrayList()
+        flushScheduled = false
+        when (batch.size) {
+            0 -> Unit
+            1 -> batch[0].result.complete(FALLBACK) // Nothing to share a request with
+            else -> {
+                val running = Batch(batch)
+                batch.forEach { it.batch = running }
+                running.job = scope.launch { run(batch) }
+            }
+        }
+    }
+
+    private suspend fun run(batch: List<Pending>) {
+        // One waiter per path reads the section; a duplicate request makes its own call
+        val byPath = LinkedHashMap<String, Pending>()
+        for (pending in batch) {
+            if (byPath.putIfAbsent(pending.path, pending) != null) pending.result.complete(FALLBACK)
+        }
+        try {
+            // No proxy serving batches answers with an error status: every path falls back
+            val response = transport.open(byPath.keys.toList())
+            // Interruptible: a cancelled batch stops waiting on the stream
+            runInterruptible {
+                ResponseBodies.decode(response) { reader ->
+                    reader.isLenient = true // Sections are top-level values one after another
+                    while (reader.peek() != JsonToken.END_DOCUMENT) {
+                        readSection(reader, byPath)
+                    }
+                }
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            // An interrupted read surfaces as an IOException
+            if (currentCoroutineContext().isActive) e.printStackTrace()
+        } finally {
+            // Sections that never arrived (or came after a broken one) are fetched individually
+            byPath.values.forEach { it.result.complete(FALLBACK) }
+        }
+    }
+
+    // "path" and "status" come before "body", so the body is read straight into its waiter
+    private fun readSection(reader: JsonReader, byPath: Map<String, Pending>) {
+        var path: String? = null
+        var status = 0
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "path" -> path = reader.nextString()
+                "status" -> status = reader.nextInt()
+                "body" -> {
+                    val pending = path?.let { byPath[it] }
+                    if (pending == null || pending.result.isCompleted) {
+                        reader.skipValue()
+                    } else if (status >= 500 || status in RETRYABLE_STATUSES) {
+                        // The proxy or its network failed, not the lookup: the individual call
+                        // gets its retries and mirror failover
+                        reader.skipValue()
+                        pending.result.complete(FALLBACK)
+                    } else if (status !in 200..299 || reader.peek() == JsonToken.NULL) {
+                        // An answer (the title isn't there): same as the individual call failing
+                        reader.skipValue()
+                        pending.result.complete(null)
+                    } else {
+                        // A reader that throws leaves the stream mid-value: the batch is aborted
+                        // and the remaining paths fall back
+                        pending.result.complete(pending.read(reader))
+                    }
+                }
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+    }
+
+    companion object {
+        private val FALLBACK = Any()
+        private val RETRYABLE_STATUSES = setOf(408, 429)
+    }
+}
@@ -0,0 +1,108 @@
+package com.anisflix.data.remote
+
+import android.os.SystemClock
+import com.anisflix.data.remote.api.MovixProxyApi
+import com.anisflix.data.remote.api.MovixUpstreamApi
+import com.anisflix.data.repository.SourceFetchConfig
+import com.google.gson.stream.JsonReader
+import kotlinx.coroutines.CancellationException
+import okhttp3.ResponseBody
+import retrofit2.Response
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+// Requests a Movix path and hands the body to a streaming reader (see ProviderJsonReader).
+// Paths listed in SourceFetchConfig.directUpstreamPaths go to the upstream API first, saving the
+// proxy hop; movix-proxy serves the rest and direct requests upstream blocks, batched with the
+// other proxy requests of the same fan-out (ProxyBatcher).
+@Singleton
+class ProxyFetcher @Inject constructor(
+    private val api: MovixProxyApi,
+    private val upstreamApi: MovixUpstreamApi,
+    private val batcher: ProxyBatcher,
+    private val config: SourceFetchConfig
+) {
+
+    // What upstream answered, including "nothing for this title" (a null value)
+    private class Answer<T>(val value: T?)
+
+    // Direct path prefix -> when upstream last blocked a direct request
+    private val directFailures = ConcurrentHashMap<String, Long>()
+
+    // Null when the request failed or returned an error status. Cancellation is rethrown so a
+    // caller that goes away (screen left, request preempted) stops the call.
+    suspend fun <T> fetch(path: String, read: (JsonReader) -> T): T? {
+        val directPrefix = directPrefixOf(path)
+        if (directPrefix != null) {
+            val answer = requestDirect(path, read)
+            if (answer != null) {
+                directFailures.remove(directPrefix)
+                return answer.value
+            }
+            // Blocked or down upstream: the whole prefix goes through the proxy for a while
+            directFailures[directPrefix] = SystemClock.elapsedRealtime()
+        }
+        return batcher.fetch(path, read) {
+            request(read) { api.getProxyResponse(path = path) }
+        }
+    }
+
+    private fun directPrefixOf(path: String): String? {
+        val prefix = config.directUpstreamPaths.firstOrNull { path.startsWith(it) } ?: return null
+        val failedAt = directFailures[prefix] ?: return prefix
+        return if (SystemClock.elapsedRealtime() - failedAt >= config.directRetryAfterMs) prefix else null
+    }
+
+    // Null when upstream can't be used from here: transport error, blocking status, challenge page.
+    // A 404 or an empty answer is passed back as is, the proxy would only repeat it.
+    private suspend fun <T> requestDirect(path: String, read: (JsonReader) -> T): Answer<T>? {
+        return try {
+            val response = upstreamApi.get(path)
+            val body = response.body()
+            when {
+                response.code() in BLOCKING_STATUSES || response.code() >= 500 -> {
+                    ResponseBodies.discard(response.errorBody())
+                    null
+                }
+                !response.isSuccessful || body == null -> Answer(ResponseBodies.decode(response, read))
+                body.contentType()?.subtype == "html" -> {
+                    body.close()
+                    null
+                }
+                body.source().exhausted() -> {
+                    body.close()
+                    Answer(null)
+                }
+                else -> Answer(ResponseBodies.decode(body, read))
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: IOException) {
+            // Transport errors, and a challenge page served as something else fails the read
+            e.printStackTrace()
+            null
+        } catch (e: Exception) {
+            // JSON of an unexpected shape: an answer, just not a usable one
+            e.printStackTrace()
+            Answer(null)
+        }
+    }
+
+    private suspend fun <T> request(read: (JsonReader) -> T, call: suspend () -> Response<ResponseBody>): T? {
+        return try {
+            ResponseBodies.decode(call(), read)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            e.printStackTrace()
+            null
+        }
+    }
+
+    companion object {
+        // Upstream refusing us rather than answering about the title
+        private val BLOCKING_STATUSES = setOf(401, 403, 407, 429)
+    }
+}
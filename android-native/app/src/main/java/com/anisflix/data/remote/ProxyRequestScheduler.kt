@@ -0,0 +1,130 @@
+package com.anisflix.data.remote
+
+import com.anisflix.data.repository.SourceFetchConfig
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Admission control for movix-proxy requests. Requests run in priority order within a global
+ * limit (SourceFetchConfig.maxInFlight) and a per-lane limit (one lane per provider):
+ * - low-priority work only starts while slots are left for user-visible requests
+ * - a user-visible request that finds no slot preempts a running BACKGROUND one, which is
+ *   queued again and retried once there is room
+ * Cancelling the caller cancels the request, whether it is queued or running.
+ */
+@Singleton
+class ProxyRequestScheduler @Inject constructor(
+    fetchConfig: SourceFetchConfig
+) {
+
+    private class Request(
+        val lane: String,
+        val laneLimit: Int,
+        val handle: ProxyRequestPriority,
+        val seq: Long
+    ) {
+        val granted = CompletableDeferred<Unit>()
+        var job: Job? = null
+        val priority: RequestPriority get() = handle.priority
+    }
+
+    private class PreemptedException : CancellationException("Preempted by a user-visible request")
+
+    private val capacity = fetchConfig.maxInFlight.coerceAtLeast(1)
+
+    private val lock = Any()
+    private val waiting = ArrayList<Request>()
+    private val running = ArrayList<Request>()
+    private var nextSeq = 0L
+
+    suspend fun <T> schedule(lane: String, laneLimit: Int, block: suspend () -> T): T {
+        val handle = currentCoroutineContext()[ProxyRequestPriority]
+            ?: ProxyRequestPriority(RequestPriority.USER_VISIBLE)
+        while (true) {
+            val request = synchronized(lock) { Request(lane, laneLimit, handle, nextSeq++) }
+            enqueue(request)
+            try {
+                request.granted.await()
+            } catch (e: CancellationException) {
+                finish(request)
+                throw e
+            }
+
+            try {
+                return coroutineScope {
+                    val work = async(start = CoroutineStart.LAZY) { block() }
+                    synchronized(lock) { request.job = work }
+                    work.start()
+                    work.await()
+                }
+            } catch (e: PreemptedException) {
+                // Deferred rather than dropped, unless the caller itself is gone
+                currentCoroutineContext().ensureActive()
+            } finally {
+                finish(request)
+            }
+        }
+    }
+
+    private fun enqueue(request: Request) {
+        synchronized(lock) {
+            waiting += request
+            dispatchLocked()
+            if (!request.granted.isCompleted && request.priority == RequestPriority.USER_VISIBLE) {
+                preemptForLocked(request)
+            }
+        }
+    }
+
+    private fun finish(request: Request) {
+        synchronized(lock) {
+            waiting.remove(request)
+            if (running.remove(request)) dispatchLocked()
+        }
+    }
+
+    // Starts waiting requests in priority order (FIFO within a priority). A request blocked by its
+    // lane doesn't hold back other lanes; one blocked by the global limit holds back everything
+    // below it.
+    private fun dispatchLocked() {
+        if (waiting.isEmpty()) return
+        waiting.sortWith(compareBy<Request>({ it.priority.ordinal }, { it.seq }))
+        val iterator = waiting.iterator()
+        while (iterator.hasNext()) {
+            val request = iterator.next()
+            if (running.size >= globalLimitFor(request.priority)) break
+            if (laneCountLocked(request.lane) >= request.laneLimit) continue
+            iterator.remove()
+            running += request
+            request.granted.complete(Unit)
+        }
+    }
+
+    private fun preemptForLocked(request: Request) {
+        val globalFull = running.size >= capacity
+        val victim = running
+            .filter { it.priority == RequestPriority.BACKGROUND && it.job != null }
+            .filter { globalFull || it.lane == request.lane }
+            .maxByOrNull { it.seq }
+            ?: return
+        // Its slot is released in finish() once the cancellation lands
+        victim.job?.cancel(PreemptedException())
+    }
+
+    // Slots left free for user-visible requests so a new screen starts loading right away
+    private fun globalLimitFor(priority: RequestPriority): Int = when (priority) {
+        RequestPriority.USER_VISIBLE -> capacity
+        RequestPriority.PREFETCH -> (capacity - 1).coerceAtLeast(1)
+        RequestPriority.BACKGROUND -> (capacity / 2).coerceAtLeast(1)
+    }
+
+    private fun laneCountLocked(lane: String): Int = running.count { it.lane == lane }
+}
@@ -0,0 +1,21 @@
+package com.anisflix.data.remote
+
+import kotlin.coroutines.AbstractCoroutineContextElement
+import kotlin.coroutines.CoroutineContext
+
+enum class RequestPriority {
+    USER_VISIBLE, // Someone is looking at a spinner
+    PREFETCH,     // Likely needed soon (next episode)
+    BACKGROUND    // Cache refreshes and fetches nobody waits on any more
+}
+
+/**
+ * Priority of the proxy requests made by a coroutine, read by ProxyRequestScheduler. Mutable so a
+ * fetch can be demoted once its caller stops waiting for it. Coroutines without one are
+ * USER_VISIBLE.
+ */
+class ProxyRequestPriority(
+    @Volatile var priority: RequestPriority
+) : AbstractCoroutineContextElement(Key) {
+    companion object Key : CoroutineContext.Key<ProxyRequestPriority>
+}
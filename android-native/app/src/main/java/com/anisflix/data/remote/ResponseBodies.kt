@@ -0,0 +1,163 @@
+package com.anisflix.data.remote
+
+import com.google.gson.stream.JsonReader
+import okhttp3.ResponseBody
+import okio.Buffer
+import okio.BufferedSource
+import okio.ByteString.Companion.decodeHex
+import retrofit2.Response
+import java.io.Reader
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
+import java.nio.charset.CharsetDecoder
+import java.nio.charset.CodingErrorAction
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Response handling for the provider fetch path. Every body is closed, whatever the outcome; error
+ * bodies, and what a reader leaves unread, are drained first so HTTP/1 connections go back to the
+ * pool instead of being dropped. A large remainder is cut off by the close instead.
+ * JSON is decoded as UTF-8 straight from the Okio source into pooled buffers, instead of a new
+ * InputStreamReader (and its buffers) per response.
+ */
+object ResponseBodies {
+
+    private const val MAX_DRAIN_BYTES = 64 * 1024L
+
+    // Null on an error status or an empty body; exceptions from the transport or [read] propagate
+    fun <T> decode(response: Response<ResponseBody>, read: (JsonReader) -> T): T? {
+        val body = response.body()
+        if (!response.isSuccessful || body == null) {
+            discard(response.errorBody())
+            body?.close()
+            return null
+        }
+        return decode(body, read)
+    }
+
+    fun <T> decode(body: ResponseBody, read: (JsonReader) -> T): T {
+        return body.use {
+            val source = it.source()
+            val result = JsonReader(Utf8SourceReader.obtain(source)).use(read)
+            // Readers may stop early (a filter, a single field): finish the body the same way
+            drain(source)
+            result
+        }
+    }
+
+    // Reads what's left of a small body so its connection can be reused; larger ones are just closed
+    fun discard(body: ResponseBody?) {
+        body?.use { drain(it.source()) }
+    }
+
+    private fun drain(source: BufferedSource) {
+        try {
+            val scratch = Buffer()
+            var drained = 0L
+            while (drained < MAX_DRAIN_BYTES) {
+                val read = source.read(scratch, 8_192L)
+                if (read == -1L) break
+                drained += read
+                scratch.clear()
+            }
+        } catch (e: Exception) {
+            // The connection is discarded on close instead
+        }
+    }
+}
+
+/**
+ * UTF-8 reader over an Okio source (malformed input becomes U+FFFD, a leading BOM is skipped).
+ * Its byte and char buffers come from a small pool and go back to it on close; closing the reader
+ * leaves the source to its owner.
+ */
+internal class Utf8SourceReader private constructor(
+    private var source: BufferedSource?,
+    private val buffers: Buffers
+) : Reader() {
+
+    class Buffers {
+        val bytes: ByteBuffer = ByteBuffer.allocate(BUFFER_SIZE)
+        val chars: CharBuffer = CharBuffer.allocate(BUFFER_SIZE)
+        val decoder: CharsetDecoder = Charsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE)
+
+        fun reset() {
+            bytes.clear()
+            chars.clear().flip() // Empty, in read mode
+            decoder.reset()
+        }
+    }
+
+    private var endOfInput = false
+    private var flushed = false
+
+    override fun read(cbuf: CharArray, off: Int, len: Int): Int {
+        if (len == 0) return 0
+        val chars = buffers.chars
+        while (!chars.hasRemaining()) {
+            if (flushed) return -1
+            fill()
+        }
+        val count = minOf(len, chars.remaining())
+        chars.get(cbuf, off, count)
+        return count
+    }
+
+    // Decodes the next chunk into the (empty) char buffer
+    private fun fill() {
+        val source = checkNotNull(source) { "Reader closed" }
+        val bytes = buffers.bytes
+        val chars = buffers.chars
+        chars.clear()
+
+        if (!endOfInput) {
+            val read = source.read(bytes.array(), bytes.position(), bytes.remaining())
+            if (read == -1) endOfInput = true else bytes.position(bytes.position() + read)
+        }
+
+        bytes.flip()
+        buffers.decoder.decode(bytes, chars, endOfInput)
+        bytes.compact() // Keeps a sequence split across reads for the next round
+        if (endOfInput) {
+            buffers.decoder.flush(chars)
+            flushed = true
+        }
+        chars.flip()
+    }
+
+    override fun close() {
+        if (source == null) return
+        source = null
+        release(buffers)
+    }
+
+    companion object {
+        private const val BUFFER_SIZE = 8 * 1024
+        private const val POOL_SIZE = 4
+        private val UTF8_BOM = "efbbbf".decodeHex()
+
+        private val pool = ConcurrentLinkedQueue<Buffers>()
+        private val pooled = AtomicInteger()
+
+        fun obtain(source: BufferedSource): Utf8SourceReader {
+            if (source.rangeEquals(0, UTF8_BOM)) source.skip(UTF8_BOM.size.toLong())
+            val buffers = pool.poll()?.also { pooled.decrementAndGet() } ?: Buffers()
+            buffers.reset()
+            return Utf8SourceReader(source, buffers)
+        }
+
+        // Buffers waiting in the pool
+        internal fun pooledCount(): Int = pooled.get()
+
+        private fun release(buffers: Buffers) {
+            if (pooled.incrementAndGet() <= POOL_SIZE) {
+                pool.offer(buffers)
+            } else {
+                pooled.decrementAndGet()
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.anisflix.data.remote
+
+import okhttp3.Interceptor
+import okhttp3.Response
+import okhttp3.logging.HttpLoggingInterceptor
+import kotlin.random.Random
+
+// Debug builds only: logs every call's request line and status, and the full bodies of a sampled
+// share of them. BODY logging buffers whole responses, too costly to apply to every call.
+class SampledBodyLoggingInterceptor(
+    private val bodySampleRate: Double
+) : Interceptor {
+
+    private val basic = HttpLoggingInterceptor().apply { level = HttpLoggingInterceptor.Level.BASIC }
+    private val body = HttpLoggingInterceptor().apply { level = HttpLoggingInterceptor.Level.BODY }
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val logger = if (Random.nextDouble() < bodySampleRate) body else basic
+        return logger.intercept(chain)
+    }
+}
@@ -0,0 +1,88 @@
+package com.anisflix.data.remote
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.NetworkCapabilities
+import okhttp3.CacheControl
+import okhttp3.Interceptor
+import okhttp3.Response
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Network interceptor giving TMDB responses a cache lifetime per endpoint. TMDB sends short or no
+ * max-age, while lists change about daily and details even less often.
+ */
+class TmdbCachePolicyInterceptor : Interceptor {
+
+    private class Rule(val pattern: Regex, val maxAgeSeconds: Int)
+
+    private val rules = listOf(
+        Rule(Regex("""^/3/(movie|tv)/\d+(/season/\d+)?$"""), 24 * HOUR),
+        Rule(Regex("""^/3/(movie/popular|movie/now_playing|tv/popular|tv/on_the_air)$"""), 6 * HOUR),
+        Rule(Regex("""^/3/discover/(movie|tv)$"""), 6 * HOUR)
+    )
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val response = chain.proceed(request)
+        if (request.method != "GET" || !response.isSuccessful) return response
+
+        val path = request.url.encodedPath
+        val maxAge = rules.firstOrNull { it.pattern.matches(path) }?.maxAgeSeconds ?: DEFAULT_MAX_AGE
+        return response.newBuilder()
+            .removeHeader("Pragma")
+            .header("Cache-Control", "public, max-age=$maxAge")
+            .build()
+    }
+
+    companion object {
+        private const val HOUR = 60 * 60
+        private const val DEFAULT_MAX_AGE = HOUR
+    }
+}
+
+/**
+ * Application interceptor serving cached TMDB responses, however stale, when the device is
+ * offline or the network call fails. Only a miss surfaces the error.
+ */
+class OfflineCacheInterceptor(context: Context) : Interceptor {
+
+    private val connectivityManager = context.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        if (request.method != "GET") return chain.proceed(request)
+
+        val staleRequest = request.newBuilder().cacheControl(STALE_IF_OFFLINE).build()
+        if (!isOnline()) return chain.proceed(staleRequest)
+
+        return try {
+            chain.proceed(request)
+        } catch (e: IOException) {
+            // Flaky connection: fall back to the disk copy, keep the original error on a miss
+            val cached = chain.proceed(staleRequest)
+            if (cached.code == UNSATISFIABLE_REQUEST) {
+                cached.close()
+                throw e
+            }
+            cached
+        }
+    }
+
+    private fun isOnline(): Boolean {
+        val network = connectivityManager.activeNetwork ?: return false
+        val capabilities = connectivityManager.getNetworkCapabilities(network) ?: return false
+        return capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+    }
+
+    companion object {
+        // OkHttp's answer to only-if-cached when nothing is cached
+        private const val UNSATISFIABLE_REQUEST = 504
+
+        private val STALE_IF_OFFLINE = CacheControl.Builder()
+            .onlyIfCached()
+            .maxStale(30, TimeUnit.DAYS)
+            .build()
+    }
+}
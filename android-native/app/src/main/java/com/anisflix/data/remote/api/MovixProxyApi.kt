@@ -1,12 +1,18 @@
 package com.anisflix.data.remote.api
 
+import com.anisflix.data.remote.dto.ProxyBatchRequest
 import okhttp3.ResponseBody
 import retrofit2.Response
+import retrofit2.http.Body
 import retrofit2.http.GET
+import retrofit2.http.POST
 import retrofit2.http.Query
+import retrofit2.http.Streaming
 import retrofit2.http.Url
 
 interface MovixProxyApi {
+    // Decoded as it arrives by ResponseBodies, which closes it
+    @Streaming
     @GET("movix-proxy")
     suspend fun getProxyResponse(
         @Query("path") path: String,
@@ -14,6 +20,11 @@ interface MovixProxyApi {
         @Query("q") query: String? = null
     ): Response<ResponseBody>
     
+    // Several paths in one request; sections stream back as each completes (see ProxyBatcher)
+    @Streaming
+    @POST("movix-proxy/batch")
+    suspend fun getBatchResponse(@Body request: ProxyBatchRequest): Response<ResponseBody>
+
     // Direct URL fetch (proxying) through the service if needed
     @GET
     suspend fun fetchRaw(@Url url: String): Response<ResponseBody>
@@ -0,0 +1,23 @@
+package com.anisflix.data.remote.api
+
+import okhttp3.ResponseBody
+import retrofit2.Response
+import retrofit2.http.GET
+import retrofit2.http.Headers
+import retrofit2.http.Streaming
+import retrofit2.http.Url
+
+// The Movix API itself, without movix-proxy in between. It expects browser-like headers from the
+// movix.cloud site; the proxy adds the same ones.
+interface MovixUpstreamApi {
+    @Headers(
+        "User-Agent: Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
+        "Accept: application/json, text/plain, */*",
+        "Accept-Language: fr-FR,fr;q=0.9,en;q=0.8",
+        "Referer: https://movix.cloud/",
+        "Origin: https://movix.cloud"
+    )
+    @Streaming
+    @GET
+    suspend fun get(@Url path: String): Response<ResponseBody>
+}
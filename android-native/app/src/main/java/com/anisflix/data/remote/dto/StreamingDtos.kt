@@ -111,3 +111,9 @@ data class MovixDownloadSourceDTO(
     val quality: String?,
     val m3u8: String?
 )
+
+// --- Batch lookup (movix-proxy/batch) ---
+// Response: newline-separated {"path": ..., "status": ..., "body": ...} sections, in completion order
+data class ProxyBatchRequest(
+    val paths: List<String>
+)
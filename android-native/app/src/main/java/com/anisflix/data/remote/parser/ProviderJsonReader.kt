@@ -0,0 +1,252 @@
+package com.anisflix.data.remote.parser
+
+import com.anisflix.data.remote.dto.FStreamEpisodeDTO
+import com.anisflix.data.remote.dto.FStreamPlayerDTO
+import com.anisflix.data.remote.dto.FStreamResponse
+import com.anisflix.data.remote.dto.FStreamTVResponse
+import com.anisflix.data.remote.dto.MovieBoxResponse
+import com.anisflix.data.remote.dto.MovieBoxStreamDTO
+import com.anisflix.data.remote.dto.StreamingSourceDTO
+import com.anisflix.data.remote.dto.SubtitleDTO
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+
+/**
+ * Streaming extraction of provider payloads: only the fields the mappers use are materialized,
+ * everything else is skipped token by token. Allocation and time per parse are on par with
+ * gson.fromJson into the DTOs (which skips unknown fields too) and well under a JsonElement tree
+ * (see ProviderJsonReaderTest). What it adds over reflective binding: entries without a URL are
+ * dropped instead of landing as nulls in non-null fields, a value of the wrong type is skipped
+ * instead of failing the whole payload, and the top-level tmdb links are skipped once the episode
+ * ones are read. Every episode and language is kept: the season cache slices episodes from one
+ * payload and the language tabs need all of them.
+ */
+object ProviderJsonReader {
+
+    // { "players": { "<lang>": [ player, ... ] } }
+    fun readFStreamMovie(reader: JsonReader): FStreamResponse {
+        var players: Map<String, List<FStreamPlayerDTO>>? = null
+        readObject(reader) { name ->
+            if (name == "players") players = readLanguageMap(reader) else reader.skipValue()
+        }
+        return FStreamResponse(players)
+    }
+
+    // { "episodes": { "<n>": { "languages": { "<lang>": [ player, ... ] } } } }
+    fun readFStreamSeason(reader: JsonReader): FStreamTVResponse {
+        var result: Map<String, FStreamEpisodeDTO>? = null
+        readObject(reader) { name ->
+            if (name == "episodes" && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                val map = LinkedHashMap<String, FStreamEpisodeDTO>()
+                readObject(reader) { episode ->
+                    map[episode] = readFStreamEpisode(reader)
+                }
+                result = map
+            } else {
+                reader.skipValue()
+            }
+        }
+        return FStreamTVResponse(result)
+    }
+
+    // Movix tmdb/movie and tmdb/tv responses: returns the episode links when present, else the
+    // top-level ones. Mirrors `current_episode?.player_links ?: player_links`.
+    fun readPlayerLinks(reader: JsonReader): List<StreamingSourceDTO>? {
+        var topLevel: List<StreamingSourceDTO>? = null
+        var episodeLinks: List<StreamingSourceDTO>? = null
+        readObject(reader) { name ->
+            when {
+                name == "current_episode" && reader.peek() == JsonToken.BEGIN_OBJECT -> {
+                    readObject(reader) { field ->
+                        if (field == "player_links") episodeLinks = readSourceList(reader) else reader.skipValue()
+                    }
+                }
+                // Already have the episode links: the top-level list is dead weight
+                name == "player_links" && episodeLinks == null -> topLevel = readSourceList(reader)
+                else -> reader.skipValue()
+            }
+        }
+        return episodeLinks ?: topLevel
+    }
+
+    // { "streams": [ ... ], "success": bool }
+    fun readMovieBox(reader: JsonReader): MovieBoxResponse {
+        var streams: List<MovieBoxStreamDTO>? = null
+        var success: Boolean? = null
+        readObject(reader) { name ->
+            when (name) {
+                "streams" -> streams = readList(reader) { readMovieBoxStream(reader) }
+                "success" -> success = nextBooleanOrNull(reader)
+                else -> reader.skipValue()
+            }
+        }
+        return MovieBoxResponse(streams, success)
+    }
+
+    // --- Elements ---
+
+    private fun readFStreamEpisode(reader: JsonReader): FStreamEpisodeDTO {
+        var map: Map<String, List<FStreamPlayerDTO>>? = null
+        readObject(reader) { name ->
+            if (name == "languages") map = readLanguageMap(reader) else reader.skipValue()
+        }
+        return FStreamEpisodeDTO(map)
+    }
+
+    private fun readLanguageMap(reader: JsonReader): Map<String, List<FStreamPlayerDTO>>? {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue()
+            return null
+        }
+        val map = LinkedHashMap<String, List<FStreamPlayerDTO>>()
+        readObject(reader) { lang ->
+            map[lang] = readList(reader) { readFStreamPlayer(reader) }.orEmpty()
+        }
+        return map
+    }
+
+    private fun readFStreamPlayer(reader: JsonReader): FStreamPlayerDTO? {
+        var url: String? = null
+        var type: String? = null
+        var quality: String? = null
+        var player: String? = null
+        readObject(reader) { name ->
+            when (name) {
+                "url" -> url = nextStringOrNull(reader)
+                "type" -> type = nextStringOrNull(reader)
+                "quality" -> quality = nextStringOrNull(reader)
+                "player" -> player = nextStringOrNull(reader)
+                else -> reader.skipValue()
+            }
+        }
+        val finalUrl = url ?: return null
+        return FStreamPlayerDTO(
+            url = finalUrl,
+            type = type ?: if (finalUrl.contains(".m3u8")) "hls" else "mp4",
+            quality = quality ?: "",
+            player = player ?: ""
+        )
+    }
+
+    private fun readSourceList(reader: JsonReader): List<StreamingSourceDTO>? {
+        return readList(reader) { readStreamingSource(reader) }
+    }
+
+    private fun readStreamingSource(reader: JsonReader): StreamingSourceDTO? {
+        var url: String? = null
+        var quality: String? = null
+        var language: String? = null
+        var provider: String? = null
+        var type: String? = null
+        var tracks: List<SubtitleDTO>? = null
+        var headers: Map<String, String>? = null
+        readObject(reader) { name ->
+            when (name) {
+                "decoded_url" -> url = nextStringOrNull(reader)
+                "quality" -> quality = nextStringOrNull(reader)
+                "language" -> language = nextStringOrNull(reader)
+                "provider" -> provider = nextStringOrNull(reader)
+                "type" -> type = nextStringOrNull(reader)
+                "tracks" -> tracks = readList(reader) { readSubtitle(reader) }
+                "headers" -> headers = readStringMap(reader)
+                else -> reader.skipValue()
+            }
+        }
+        return StreamingSourceDTO(url ?: return null, quality, language, provider, type, tracks, headers)
+    }
+
+    private fun readMovieBoxStream(reader: JsonReader): MovieBoxStreamDTO? {
+        var url: String? = null
+        var directUrl: String? = null
+        var quality: String? = null
+        var type: String? = null
+        var headers: Map<String, String>? = null
+        readObject(reader) { name ->
+            when (name) {
+                "url" -> url = nextStringOrNull(reader)
+                "directUrl" -> directUrl = nextStringOrNull(reader)
+                "quality" -> quality = nextStringOrNull(reader)
+                "type" -> type = nextStringOrNull(reader)
+                "headers" -> headers = readStringMap(reader)
+                else -> reader.skipValue()
+            }
+        }
+        return MovieBoxStreamDTO(url ?: return null, directUrl, quality, type, headers)
+    }
+
+    private fun readSubtitle(reader: JsonReader): SubtitleDTO? {
+        var url: String? = null
+        var label: String? = null
+        var code: String? = null
+        var flag: String? = null
+        readObject(reader) { name ->
+            when (name) {
+                "url" -> url = nextStringOrNull(reader)
+                "label" -> label = nextStringOrNull(reader)
+                "code" -> code = nextStringOrNull(reader)
+                "flag" -> flag = nextStringOrNull(reader)
+                else -> reader.skipValue()
+            }
+        }
+        return SubtitleDTO(url ?: return null, label ?: "", code ?: "", flag ?: "")
+    }
+
+    // --- Primitives ---
+
+    // Calls [onField] for each member name; the callback must consume (or skip) the value
+    private inline fun readObject(reader: JsonReader, onField: (String) -> Unit) {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue()
+            return
+        }
+        reader.beginObject()
+        while (reader.hasNext()) {
+            onField(reader.nextName())
+        }
+        reader.endObject()
+    }
+
+    // Null elements (and elements the reader rejects) are dropped
+    private inline fun <T : Any> readList(reader: JsonReader, readElement: () -> T?): List<T>? {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue()
+            return null
+        }
+        val list = ArrayList<T>()
+        reader.beginArray()
+        while (reader.hasNext()) {
+            readElement()?.let { list.add(it) }
+        }
+        reader.endArray()
+        return list
+    }
+
+    private fun readStringMap(reader: JsonReader): Map<String, String>? {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue()
+            return null
+        }
+        val map = LinkedHashMap<String, String>()
+        readObject(reader) { name ->
+            nextStringOrNull(reader)?.let { map[name] = it }
+        }
+        return map
+    }
+
+    private fun nextStringOrNull(reader: JsonReader): String? {
+        return when (reader.peek()) {
+            JsonToken.STRING, JsonToken.NUMBER -> reader.nextString()
+            else -> {
+                reader.skipValue()
+                null
+            }
+        }
+    }
+
+    private fun nextBooleanOrNull(reader: JsonReader): Boolean? {
+        return if (reader.peek() == JsonToken.BOOLEAN) reader.nextBoolean() else {
+            reader.skipValue()
+            null
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.anisflix.data.repository
+
+// Latency budget for the provider fan-out in StreamingRepositoryImpl.
+// Per-provider deadlines and concurrency live on each SourceProvider.
+data class SourceFetchConfig(
+    // Overall budget for one lookup: past it we return whatever has arrived
+    val totalBudgetMs: Long = 8_000L,
+    // How long a provider may keep running in the background after missing its deadline
+    val lateResultTimeoutMs: Long = 30_000L,
+    // Proxy requests in flight across all lookups (see ProxyRequestScheduler)
+    val maxInFlight: Int = 6,
+    // Movix paths requested from the upstream API directly, with movix-proxy only as the fallback.
+    // The others (moviebox, universalvo, afterdark) are proxy-side scrapers with no upstream route.
+    val directUpstreamPaths: Set<String> = setOf("tmdb/", "fstream/", "films/download/", "series/download/"),
+    // After upstream blocks a direct request (not a plain 404), that path goes through the proxy for this long
+    val directRetryAfterMs: Long = 5 * 60_000L,
+    // Proxy requests issued within this window go out as one batch request, up to maxBatchSize
+    val batchWindowMs: Long = 15L,
+    val maxBatchSize: Int = 8
+)
@@ -0,0 +1,187 @@
+package com.anisflix.data.repository
+
+import android.content.Context
+import android.os.SystemClock
+import com.anisflix.data.extractor.EmbedPageFetcher
+import com.anisflix.data.provider.CircuitState
+import com.anisflix.data.provider.ProviderHealthTracker
+import com.anisflix.data.remote.SampledBodyLoggingInterceptor
+import com.anisflix.domain.model.RankedSource
+import com.anisflix.domain.model.SourceIndex
+import com.anisflix.domain.model.SourceScore
+import com.anisflix.domain.model.StreamingSource
+import com.anisflix.domain.repository.ContentLanguage
+import com.anisflix.domain.repository.SourceRanker
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.suspendCancellableCoroutine
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import kotlin.coroutines.resume
+
+class SourceRankerImpl @Inject constructor(
+    @ApplicationContext context: Context,
+    okHttpClient: OkHttpClient,
+    private val healthTracker: ProviderHealthTracker
+) : SourceRanker {
+
+    private class Probe(val ttfbMs: Long, val rangeSupported: Boolean)
+
+    // Same pool, short deadline; no body logging, which would buffer a whole file when a host
+    // ignores the Range header
+    private val probeClient = okHttpClient.newBuilder()
+        .apply { interceptors().removeAll { it is SampledBodyLoggingInterceptor } }
+        .callTimeout(PROBE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+        .build()
+
+    // Short side of the display: the height a 16:9 stream needs to fill it
+    private val screenHeight = context.resources.displayMetrics.let { minOf(it.widthPixels, it.heightPixels) }
+
+    override suspend fun rank(sources: List<StreamingSource>, language: ContentLanguage): List<RankedSource> = coroutineScope {
+        // Local signals first; only the leading candidates are worth a request
+        val local = sources.map { it to localScore(it, language) }
+            .sortedByDescending { (_, score) -> score.total }
+        val probes = local.take(PROBE_COUNT)
+            .map { (source, _) -> async { probe(source) } }
+            .awaitAll()
+
+        local.mapIndexed { index, (source, score) ->
+            if (index >= probes.size) return@mapIndexed RankedSource(source, score)
+            val probe = probes[index]
+            val probeScore = probeScore(source, probe)
+            RankedSource(
+                source,
+                score.copy(
+                    probe = probeScore,
+                    ttfbMs = probe?.ttfbMs,
+                    total = score.total + (probeScore - NEUTRAL) * PROBE_WEIGHT
+                )
+            )
+        }.sortedByDescending { it.score.total }
+    }
+
+    // Probe left neutral until measured
+    private fun localScore(source: StreamingSource, language: ContentLanguage): SourceScore {
+        val languageScore = languageScore(source, language)
+        val health = healthScore(source)
+        val quality = qualityScore(source)
+        val container = containerScore(source)
+        return SourceScore(
+            language = languageScore,
+            probe = NEUTRAL,
+            health = health,
+            quality = quality,
+            container = container,
+            ttfbMs = null,
+            total = languageScore * LANGUAGE_WEIGHT + NEUTRAL * PROBE_WEIGHT + health * HEALTH_WEIGHT +
+                quality * QUALITY_WEIGHT + container * CONTAINER_WEIGHT
+        )
+    }
+
+    // Preferred language, then the usual VF > VOSTFR > VO fallback
+    private fun languageScore(source: StreamingSource, preferred: ContentLanguage): Float {
+        val language = SourceIndex.languageOf(source)
+        if (language == preferred) return 1f
+        return when (language) {
+            ContentLanguage.VF -> 0.4f
+            ContentLanguage.VOSTFR -> 0.3f
+            ContentLanguage.VO -> 0.2f
+        }
+    }
+
+    private fun healthScore(source: StreamingSource): Float {
+        val stats = healthTracker.stats(source.origin ?: source.provider) ?: return NEUTRAL
+        if (stats.state == CircuitState.OPEN) return 0f
+        if (stats.samples < MIN_HEALTH_SAMPLES) return NEUTRAL
+        return stats.successRate.toFloat()
+    }
+
+    // Full marks from the screen's height up; well above it only costs bandwidth
+    private fun qualityScore(source: StreamingSource): Float {
+        val height = SourceIndex.parseHeight(source.quality)
+        if (height == 0 || screenHeight <= 0) return NEUTRAL
+        return when {
+            height > screenHeight * 2 -> 0.9f
+            height >= screenHeight -> 1f
+            else -> height.toFloat() / screenHeight
+        }
+    }
+
+    // HLS adapts to the connection; a URL that is neither needs an extraction first
+    private fun containerScore(source: StreamingSource): Float = when {
+        source.url.contains(".m3u8") -> 1f
+        source.url.contains(".mp4") -> 0.8f
+        source.type == "hls" -> 0.7f
+        source.type == "mp4" -> 0.6f
+        else -> 0.4f
+    }
+
+    // A failed probe scores zero: that host would most likely fail at playback too
+    private fun probeScore(source: StreamingSource, probe: Probe?): Float {
+        if (probe == null) return 0f
+        val responsiveness = (1f - probe.ttfbMs.toFloat() / PROBE_TIMEOUT_MS).coerceIn(0f, 1f)
+        // Seeking in a progressive file needs range requests; HLS doesn't
+        return if (source.url.contains(".mp4")) {
+            responsiveness * 0.7f + (if (probe.rangeSupported) 0.3f else 0f)
+        } else {
+            responsiveness
+        }
+    }
+
+    // Time to response headers for the first bytes; null on error status, failure or timeout
+    private suspend fun probe(source: StreamingSource): Probe? {
+        val request = try {
+            Request.Builder()
+                .url(source.url)
+                .header("User-Agent", EmbedPageFetcher.USER_AGENT)
+                .apply { source.headers?.forEach { (name, value) -> header(name, value) } }
+                .header("Range", "bytes=0-${PROBE_BYTES - 1}")
+                .build()
+        } catch (e: IllegalArgumentException) {
+            return null // Malformed URL
+        }
+        val call = probeClient.newCall(request)
+        val started = SystemClock.elapsedRealtime()
+        return suspendCancellableCoroutine { continuation ->
+            continuation.invokeOnCancellation { call.cancel() }
+            call.enqueue(object : Callback {
+                override fun onFailure(call: Call, e: IOException) {
+                    continuation.resume(null)
+                }
+
+                override fun onResponse(call: Call, response: Response) {
+                    // Headers are in; the body isn't needed
+                    val probe = response.use {
+                        if (!it.isSuccessful) null else Probe(
+                            ttfbMs = SystemClock.elapsedRealtime() - started,
+                            rangeSupported = it.code == 206 || it.header("Accept-Ranges") == "bytes"
+                        )
+                    }
+                    continuation.resume(probe)
+                }
+            })
+        }
+    }
+
+    companion object {
+        private const val PROBE_COUNT = 4
+        private const val PROBE_BYTES = 1024
+        private const val PROBE_TIMEOUT_MS = 1_500L
+        private const val MIN_HEALTH_SAMPLES = 5
+        private const val NEUTRAL = 0.5f
+
+        private const val LANGUAGE_WEIGHT = 0.4f
+        private const val PROBE_WEIGHT = 0.25f
+        private const val HEALTH_WEIGHT = 0.15f
+        private const val QUALITY_WEIGHT = 0.12f
+        private const val CONTAINER_WEIGHT = 0.08f
+    }
+}
@@ -0,0 +1,82 @@
+package com.anisflix.data.repository
+
+import com.anisflix.data.extractor.EmbedExtractor
+import com.anisflix.data.local.ExtractedStreamCache
+import com.anisflix.data.mapper.SignedUrlExpiry
+import com.anisflix.domain.model.StreamingSource
+import com.anisflix.domain.repository.StreamResolver
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+
+class StreamResolverImpl @Inject constructor(
+    extractors: Set<@JvmSuppressWildcards EmbedExtractor>,
+    private val cache: ExtractedStreamCache
+) : StreamResolver {
+
+    private val extractors = extractors.associateBy { it.provider }
+
+    // Extractions outlive the screen that started them, so a prefetch still lands in the cache
+    private val extractionScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    // Source id -> running extraction, shared by prefetch and play
+    private val inFlight = ConcurrentHashMap<String, Deferred<StreamingSource?>>()
+
+    override suspend fun resolve(source: StreamingSource): Result<StreamingSource> {
+        val extractor = extractorFor(source) ?: return Result.success(source)
+        cache.get(source.id)?.let { return Result.success(it) }
+        return try {
+            val resolved = extract(source, extractor).await()
+            if (resolved != null) {
+                Result.success(resolved)
+            } else {
+                Result.failure(IllegalStateException("Could not extract ${source.provider} stream"))
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+
+    override fun prefetch(sources: List<StreamingSource>) {
+        // Sources arrive ranked: only the ones the user is likely to tap are worth a page load
+        sources.asSequence()
+            .mapNotNull { source -> extractorFor(source)?.let { source to it } }
+            .take(PREFETCH_COUNT)
+            .filter { (source, _) -> cache.get(source.id) == null }
+            .forEach { (source, extractor) -> extract(source, extractor) }
+    }
+
+    private fun extractorFor(source: StreamingSource): EmbedExtractor? {
+        if (source.url.contains(".m3u8") || source.url.contains(".mp4")) return null // Already direct
+        return extractors[source.provider]
+    }
+
+    private fun extract(source: StreamingSource, extractor: EmbedExtractor): Deferred<StreamingSource?> {
+        inFlight[source.id]?.let { return it }
+        val deferred = extractionScope.async(start = CoroutineStart.LAZY) {
+            extractor.extract(source)
+                ?.let { it.copy(expiresAt = SignedUrlExpiry.expiresAt(it.url)) }
+                ?.also { cache.put(source.id, it) }
+        }
+        val running = inFlight.putIfAbsent(source.id, deferred)
+        if (running != null) {
+            deferred.cancel() // Lost the race, never started
+            return running
+        }
+        deferred.invokeOnCompletion { inFlight.remove(source.id, deferred) }
+        deferred.start()
+        return deferred
+    }
+
+    companion object {
+        private const val PREFETCH_COUNT = 3
+    }
+}
@@ -1,146 +1,373 @@
 package com.anisflix.data.repository
 
-import com.anisflix.data.mapper.toDomain
-import com.anisflix.data.remote.api.MovixProxyApi
-import com.anisflix.data.remote.dto.FStreamResponse
-import com.anisflix.data.remote.dto.FStreamTVResponse
-import com.anisflix.data.remote.dto.MovieBoxResponse
-import com.anisflix.data.remote.dto.MovixTmdbResponse
-import com.anisflix.data.remote.dto.MovixTmdbSeriesResponse
+import android.os.SystemClock
+import com.anisflix.data.local.SourceCache
+import com.anisflix.data.mapper.SourceCanonicalizer
+import com.anisflix.data.provider.Admission
+import com.anisflix.data.provider.FetchOutcome
+import com.anisflix.data.provider.ProviderHealthTracker
+import com.anisflix.data.provider.ProviderPreferenceTracker
+import com.anisflix.data.provider.SourceProvider
+import com.anisflix.data.provider.SourceProviderRegistry
+import com.anisflix.data.remote.ProxyRequestPriority
+import com.anisflix.data.remote.RequestPriority
+import com.anisflix.domain.model.SourceFetchResult
+import com.anisflix.domain.model.SourceIndex
 import com.anisflix.domain.model.StreamingSource
+import com.anisflix.domain.repository.ContentLanguage
 import com.anisflix.domain.repository.StreamingRepository
-import com.google.gson.Gson
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.async
-import kotlinx.coroutines.awaitAll
-import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.firstOrNull
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.flow.lastOrNull
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.joinAll
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.withTimeoutOrNull
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
 
 class StreamingRepositoryImpl @Inject constructor(
-    private val api: MovixProxyApi,
-    private val gson: Gson // Inject Gson to parse ResponseBody manually if needed, or use Typed API
+    private val registry: SourceProviderRegistry,
+    private val fetchConfig: SourceFetchConfig,
+    private val sourceCache: SourceCache,
+    private val healthTracker: ProviderHealthTracker,
+    private val preferenceTracker: ProviderPreferenceTracker
 ) : StreamingRepository {
 
-    // Helper to request and parse
-    private suspend inline fun <reified T> fetch(path: String): T? {
+    // Provider fetches run here rather than in the caller's scope, so one that misses its deadline
+    // can still finish in the background and land in the source cache
+    private val fetchScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    // "<title key>|<provider>" entries currently being revalidated
+    private val refreshing = ConcurrentHashMap.newKeySet<String>()
+
+    // "<title key>|<provider>" -> re-fetch for expiring links, shared by concurrent callers
+    private val sourceRefreshes = ConcurrentHashMap<String, Deferred<List<StreamingSource>?>>()
+
+    override suspend fun getMovieSources(movieId: Int): Result<SourceFetchResult> {
+        return try {
+            Result.success(movieSnapshots(movieId).lastOrNull() ?: SourceFetchResult(emptyList()))
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+
+    override suspend fun getSeriesSources(seriesId: Int, season: Int, episode: Int): Result<SourceFetchResult> {
         return try {
-            val response = api.getProxyResponse(path = path)
-            if (response.isSuccessful && response.body() != null) {
-                gson.fromJson(response.body()!!.charStream(), T::class.java)
+            Result.success(seriesSnapshots(seriesId, season, episode).lastOrNull() ?: SourceFetchResult(emptyList()))
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+
+    override fun streamMovieSources(movieId: Int): Flow<List<StreamingSource>> {
+        return movieSnapshots(movieId).map { it.sources }.distinctUntilChanged()
+    }
+
+    override fun streamSeriesSources(seriesId: Int, season: Int, episode: Int): Flow<List<StreamingSource>> {
+        return seriesSnapshots(seriesId, season, episode).map { it.sources }.distinctUntilChanged()
+    }
+
+    override suspend fun getPreferredMovieSources(movieId: Int, language: ContentLanguage): Result<SourceFetchResult> {
+        return preferredSources("movie:$movieId", movieFetchers(movieId), language)
+    }
+
+    override suspend fun getPreferredSeriesSources(seriesId: Int, season: Int, episode: Int, language: ContentLanguage): Result<SourceFetchResult> {
+        return preferredSources("tv:$seriesId:$season:$episode", episodeFetchers(seriesId, season, episode), language)
+    }
+
+    override suspend fun refreshMovieSource(movieId: Int, source: StreamingSource): Result<StreamingSource> {
+        return refreshSource("movie:$movieId", movieFetchers(movieId), source)
+    }
+
+    override suspend fun refreshEpisodeSource(seriesId: Int, season: Int, episode: Int, source: StreamingSource): Result<StreamingSource> {
+        return refreshSource("tv:$seriesId:$season:$episode", episodeFetchers(seriesId, season, episode), source)
+    }
+
+    override fun onSourcePlayed(source: StreamingSource) {
+        // origin is the SourceProvider name for every mapper
+        source.origin?.takeIf { registry.get(it) != null }?.let { preferenceTracker.recordPlayed(it) }
+    }
+
+    private fun movieSnapshots(movieId: Int): Flow<SourceFetchResult> =
+        progressiveSources("movie:$movieId", movieFetchers(movieId))
+
+    private fun seriesSnapshots(seriesId: Int, season: Int, episode: Int): Flow<SourceFetchResult> =
+        progressiveSources("tv:$seriesId:$season:$episode", episodeFetchers(seriesId, season, episode))
+
+    private fun movieFetchers(movieId: Int): List<ProviderFetch> =
+        registry.movieProviders().map { provider -> ProviderFetch(provider) { provider.fetchMovie(movieId) } }
+
+    private fun episodeFetchers(seriesId: Int, season: Int, episode: Int): List<ProviderFetch> =
+        registry.episodeProviders().map { provider -> ProviderFetch(provider) { provider.fetchEpisode(seriesId, season, episode) } }
+
+    override suspend fun getNextEpisodeSources(provider: String, seriesId: Int, season: Int, episode: Int): Result<List<StreamingSource>> {
+        return withContext(ProxyRequestPriority(RequestPriority.PREFETCH)) {
+            // Targeted fetch logic: ask only the provider that served the current episode, if it is one of ours
+            val target = registry.get(provider.lowercase())
+            if (target == null) {
+                getSeriesSources(seriesId, season, episode).map { it.sources } // Fallback to full
             } else {
-                null
+                try {
+                    val fetcher = ProviderFetch(target) { target.fetchEpisode(seriesId, season, episode) }
+                    val sources = cachedOrFetch("tv:$seriesId:$season:$episode", fetcher).orEmpty()
+                    Result.success(sources.filter { isAllowed(target, it) })
+                } catch (e: CancellationException) {
+                    throw e
+                } catch (e: Exception) {
+                    Result.failure(e)
+                }
             }
-        } catch (e: Exception) {
-            e.printStackTrace()
-            null
         }
     }
 
-    override suspend fun getMovieSources(movieId: Int): Result<List<StreamingSource>> = coroutineScope {
-        try {
-            val tmdbDeferred = async { fetchTmdbSources(movieId) }
-            val fstreamDeferred = async { fetchFStreamSources(movieId) }
-            val movieBoxDeferred = async { fetchMovieBoxSources(movieId) }
-            // Add other providers (Vixsrc, Universal, etc.) as needed
-
-            val sources = mutableListOf<StreamingSource>()
-            
-            val tmdb = tmdbDeferred.await()
-            val fstream = fstreamDeferred.await()
-            val movieBox = movieBoxDeferred.await()
-
-            sources.addAll(tmdb)
-            sources.addAll(movieBox) // Priority 2
-            sources.addAll(fstream)
-
-            // Filtering logic
-            val allowed = sources.filter {
-                val p = it.provider
-                p == "vidmoly" || p == "vidzy" || p == "moviebox" || p == "fstream" // etc
+    override suspend fun preloadSeriesSources(seriesId: Int, season: Int, episode: Int): Result<SourceFetchResult> {
+        return withContext(ProxyRequestPriority(RequestPriority.BACKGROUND)) {
+            getSeriesSources(seriesId, season, episode)
+        }
+    }
+
+    // Stable ids ignore signature params (SourceCanonicalizer), so the re-fetched link is found by id
+    private suspend fun refreshSource(key: String, fetchers: List<ProviderFetch>, source: StreamingSource): Result<StreamingSource> {
+        val fetcher = fetchers.firstOrNull { it.name == source.origin }
+            ?: return Result.failure(IllegalArgumentException("Unknown origin ${source.origin}"))
+        return try {
+            // Someone may already have refreshed it
+            val cached = sourceCache.get(key, fetcher.name)?.sources?.firstOrNull { it.id == source.id }
+            if (cached != null && !cached.expiresWithin(StreamingSource.EXPIRY_MARGIN_MS)) {
+                return Result.success(cached)
             }
-            
-            Result.success(allowed)
+
+            val fresh = sharedRefresh(key, fetcher).await()?.firstOrNull { it.id == source.id }
+            if (fresh != null) Result.success(fresh) else Result.failure(IllegalStateException("${fetcher.name} no longer lists the source"))
+        } catch (e: CancellationException) {
+            throw e
         } catch (e: Exception) {
             Result.failure(e)
         }
     }
 
-    override suspend fun getSeriesSources(seriesId: Int, season: Int, episode: Int): Result<List<StreamingSource>> = coroutineScope {
-        try {
-            val tmdbDeferred = async { fetchTmdbSeriesSources(seriesId, season, episode) }
-            val fstreamDeferred = async { fetchFStreamSeriesSources(seriesId, season, episode) }
-            val movieBoxDeferred = async { fetchMovieBoxSeriesSources(seriesId, season, episode) }
-
-            val sources = mutableListOf<StreamingSource>()
-            
-            val tmdb = tmdbDeferred.await()
-            val fstream = fstreamDeferred.await()
-            val movieBox = movieBoxDeferred.await()
-
-            sources.addAll(tmdb)
-            sources.addAll(movieBox)
-            sources.addAll(fstream)
-
-             val allowed = sources.filter {
-                val p = it.provider
-                p == "vidmoly" || p == "vidzy" || p == "moviebox" || p == "fstream" 
+    private suspend fun sharedRefresh(key: String, fetcher: ProviderFetch): Deferred<List<StreamingSource>?> {
+        val refreshKey = "$key|${fetcher.name}"
+        sourceRefreshes[refreshKey]?.let { return it }
+        val priority = currentCoroutineContext()[ProxyRequestPriority]?.priority ?: RequestPriority.USER_VISIBLE
+        val deferred = fetchScope.async(ProxyRequestPriority(priority), start = CoroutineStart.LAZY) {
+            fetchAndCache(key, fetcher)
+        }
+        sourceRefreshes.putIfAbsent(refreshKey, deferred)?.let {
+            deferred.cancel() // Lost the race, never started
+            return it
+        }
+        deferred.invokeOnCompletion { sourceRefreshes.remove(refreshKey, deferred) }
+        deferred.start()
+        return deferred
+    }
+
+    // --- Aggregation ---
+
+    // Queries providers in waves of PREFERRED_WAVE_SIZE, most likely first (ProviderPreferenceTracker),
+    // until a source in [language] shows up. Within a wave it returns on the first match without
+    // waiting for the slower provider, whose fetch carries on in the background into the cache.
+    private suspend fun preferredSources(
+        key: String,
+        fetchers: List<ProviderFetch>,
+        language: ContentLanguage
+    ): Result<SourceFetchResult> {
+        return try {
+            val byName = fetchers.associateBy { it.name }
+            val ordered = preferenceTracker.order(fetchers.map { it.name }, language).map { byName.getValue(it) }
+            val found = mutableListOf<StreamingSource>()
+            val timedOut = mutableSetOf<String>()
+            var queried = 0
+            for (wave in ordered.chunked(PREFERRED_WAVE_SIZE)) {
+                queried += wave.size
+                var latest: SourceFetchResult? = null
+                val match = progressiveSources(key, wave)
+                    .onEach { latest = it }
+                    .firstOrNull { snapshot -> snapshot.sources.any { SourceIndex.languageOf(it) == language } }
+                val result = match ?: latest
+                if (result != null) {
+                    found += result.sources
+                    timedOut += result.timedOutProviders
+                }
+                if (match != null) break
             }
-            
-            Result.success(allowed)
+            val skipped = ordered.drop(queried).mapTo(mutableSetOf()) { it.name }
+            Result.success(SourceFetchResult(SourceCanonicalizer.dedupe(found), timedOut, skipped))
+        } catch (e: CancellationException) {
+            throw e
         } catch (e: Exception) {
-             Result.failure(e)
+            Result.failure(e)
         }
     }
 
-    override suspend fun getNextEpisodeSources(provider: String, seriesId: Int, season: Int, episode: Int): Result<List<StreamingSource>> {
-        // Targeted fetch logic
-        return when (provider.lowercase()) {
-            "moviebox" -> Result.success(fetchMovieBoxSeriesSources(seriesId, season, episode))
-            "fstream" -> Result.success(fetchFStreamSeriesSources(seriesId, season, episode))
-            else -> getSeriesSources(seriesId, season, episode) // Fallback to full
+    // One provider bound to one title. block returns null when the call failed (as opposed to an
+    // empty answer).
+    private class ProviderFetch(
+        val provider: SourceProvider,
+        val block: suspend () -> List<StreamingSource>?
+    ) {
+        val name: String get() = provider.name
+    }
+
+    // Runs every fetcher concurrently and emits the allowed sources gathered so far each time one
+    // completes. Snapshots keep the fetcher list order (priority), not the arrival order.
+    // Each provider gets its own deadline and the whole lookup is capped by the total budget; when
+    // either runs out, the last snapshot lists the providers that did not answer in time.
+    private fun progressiveSources(key: String, fetchers: List<ProviderFetch>): Flow<SourceFetchResult> = channelFlow {
+        val results = arrayOfNulls<List<StreamingSource>>(fetchers.size)
+        val timedOut = mutableSetOf<String>()
+        val lock = Mutex()
+        var lastSent: SourceFetchResult? = null
+
+        suspend fun publish() {
+            // Same stream from several origins collapses into one entry (see SourceCanonicalizer)
+            val sources = SourceCanonicalizer.dedupe(results.filterNotNull().flatten())
+            val snapshot = SourceFetchResult(sources, timedOut.toSet())
+            if (snapshot != lastSent) {
+                lastSent = snapshot
+                send(snapshot)
+            }
+        }
+
+        val finished = withTimeoutOrNull(fetchConfig.totalBudgetMs) {
+            fetchers.mapIndexed { index, fetcher ->
+                launch {
+                    val fetched = cachedOrFetch(key, fetcher)
+                    // Emit under the lock so collectors always see a growing list
+                    lock.withLock {
+                        if (fetched == null) timedOut += fetcher.name
+                        results[index] = fetched?.filter { isAllowed(fetcher.provider, it) } ?: emptyList()
+                        if (!fetched.isNullOrEmpty()) publish()
+                    }
+                }
+            }.joinAll()
+        }
+
+        lock.withLock {
+            if (finished == null) {
+                fetchers.forEachIndexed { index, fetcher ->
+                    if (results[index] == null) timedOut += fetcher.name
+                }
+            }
+            // Final snapshot carries the timed-out providers (or an empty result)
+            if (lastSent == null || timedOut.isNotEmpty()) publish()
         }
     }
 
-    // --- Fetchers ---
+    // Serves the cache first (stale-while-revalidate), then falls back to the network. Providers
+    // whose circuit is open are skipped; a recovering one is probed in the background only, so
+    // the user never waits on a provider that has been failing.
+    private suspend fun cachedOrFetch(key: String, fetcher: ProviderFetch): List<StreamingSource>? {
+        val cached = sourceCache.get(key, fetcher.name)
+        if (cached != null && !cached.isStale) return cached.sources
 
-    private suspend fun fetchTmdbSources(movieId: Int): List<StreamingSource> {
-        val dto = fetch<MovixTmdbResponse>("tmdb/movie/$movieId")
-        return dto?.player_links?.map { it.toDomain("tmdb") } ?: emptyList()
+        return when (healthTracker.admit(fetcher.name)) {
+            Admission.ALLOW -> {
+                if (cached != null) {
+                    refreshInBackground(key, fetcher)
+                    cached.sources
+                } else {
+                    fetchWithDeadline(key, fetcher)
+                }
+            }
+            Admission.PROBE -> {
+                refreshInBackground(key, fetcher)
+                cached?.sources ?: emptyList()
+            }
+            Admission.SKIP -> cached?.sources ?: emptyList()
+        }
     }
 
-    private suspend fun fetchFStreamSources(movieId: Int): List<StreamingSource> {
-        val dto = fetch<FStreamResponse>("fstream/movie/$movieId")
-        val sources = mutableListOf<StreamingSource>()
-        dto?.players?.forEach { (lang, list) ->
-            list.forEach { sources.add(it.toDomain(lang)) }
+    // Null when the provider missed its deadline. The fetch itself keeps running (up to
+    // lateResultTimeoutMs) and its result still lands in the cache for the next lookup, but once
+    // nobody waits on it (deadline missed, screen left) it drops to BACKGROUND priority and
+    // yields to user-visible requests.
+    private suspend fun fetchWithDeadline(key: String, fetcher: ProviderFetch): List<StreamingSource>? {
+        val priority = ProxyRequestPriority(
+            currentCoroutineContext()[ProxyRequestPriority]?.priority ?: RequestPriority.USER_VISIBLE
+        )
+        val deferred = fetchScope.async(priority) { fetchAndCache(key, fetcher) }
+        try {
+            return withTimeoutOrNull(fetcher.provider.timeoutMs) {
+                deferred.await() ?: emptyList() // A failed call is not a timeout
+            }
+        } finally {
+            if (!deferred.isCompleted) priority.priority = RequestPriority.BACKGROUND
         }
-        return sources
     }
 
-    private suspend fun fetchMovieBoxSources(movieId: Int): List<StreamingSource> {
-        // path=moviebox&tmdbId=...&type=movie
-        val dto = fetch<MovieBoxResponse>("moviebox&tmdbId=$movieId&type=movie")
-        return dto?.streams?.map { it.toDomain() } ?: emptyList()
+    private fun refreshInBackground(key: String, fetcher: ProviderFetch) {
+        val refreshKey = "$key|${fetcher.name}"
+        if (!refreshing.add(refreshKey)) return
+        fetchScope.launch(ProxyRequestPriority(RequestPriority.BACKGROUND)) {
+            try {
+                fetchAndCache(key, fetcher)
+            } finally {
+                refreshing.remove(refreshKey)
+            }
+        }
     }
 
-    private suspend fun fetchTmdbSeriesSources(seriesId: Int, season: Int, episode: Int): List<StreamingSource> {
-        val dto = fetch<MovixTmdbSeriesResponse>("tmdb/tv/$seriesId?season=$season&episode=$episode")
-        val links = dto?.current_episode?.player_links ?: dto?.player_links ?: emptyList()
-        return links.map { it.toDomain("tmdb") }
+    private suspend fun fetchAndCache(key: String, fetcher: ProviderFetch): List<StreamingSource>? {
+        val start = SystemClock.elapsedRealtime()
+        var sources: List<StreamingSource>? = null
+        var completed = false
+        try {
+            sources = withTimeoutOrNull(fetchConfig.lateResultTimeoutMs) {
+                registry.withPermits(fetcher.provider) { fetcher.block() }
+            }
+            completed = true
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            // A mapper or reader choking on an unexpected answer: this provider failed, not the lookup
+            e.printStackTrace()
+            completed = true
+        } finally {
+            // Always settled, or a half-open probe would never be admitted again
+            if (completed) {
+                val outcome = when {
+                    sources == null -> FetchOutcome.FAILURE
+                    sources.isEmpty() -> FetchOutcome.EMPTY
+                    else -> FetchOutcome.SUCCESS
+                }
+                healthTracker.record(fetcher.name, SystemClock.elapsedRealtime() - start, outcome)
+            } else {
+                healthTracker.release(fetcher.name)
+            }
+        }
+        if (sources != null) preferenceTracker.recordYield(fetcher.name, sources.filter { isAllowed(fetcher.provider, it) })
+
+        if (sources != null) sourceCache.put(key, fetcher.name, sources)
+        return sources
     }
 
-    private suspend fun fetchFStreamSeriesSources(seriesId: Int, season: Int, episode: Int): List<StreamingSource> {
-         // path=fstream/tv/$seriesId/season/$season
-         val dto = fetch<FStreamTVResponse>("fstream/tv/$seriesId/season/$season")
-         // Extract episode
-         val sources = mutableListOf<StreamingSource>()
-         dto?.episodes?.get(episode.toString())?.languages?.forEach { (lang, list) ->
-              list.forEach { sources.add(it.toDomain(lang)) }
-         }
-         return sources
+    // Direct-stream providers are trusted as is; embed aggregators only keep hosts we can play
+    private fun isAllowed(provider: SourceProvider, source: StreamingSource): Boolean {
+        return provider.directStreams || source.provider in PLAYABLE_EMBED_HOSTS
     }
 
-    private suspend fun fetchMovieBoxSeriesSources(seriesId: Int, season: Int, episode: Int): List<StreamingSource> {
-         val dto = fetch<MovieBoxResponse>("moviebox&tmdbId=$seriesId&type=tv&season=$season&episode=$episode")
-         return dto?.streams?.map { it.toDomain() } ?: emptyList()
+    companion object {
+        private val PLAYABLE_EMBED_HOSTS = setOf("vidmoly", "vidzy", "moviebox", "fstream")
+        private const val PREFERRED_WAVE_SIZE = 2
     }
 }
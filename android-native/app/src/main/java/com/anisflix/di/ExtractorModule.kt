@@ -0,0 +1,23 @@
+package com.anisflix.di
+
+import com.anisflix.data.extractor.EmbedExtractor
+import com.anisflix.data.extractor.VidmolyExtractor
+import com.anisflix.data.extractor.VidzyExtractor
+import dagger.Binds
+import dagger.Module
+import dagger.hilt.InstallIn
+import dagger.hilt.components.SingletonComponent
+import dagger.multibindings.IntoSet
+
+// On-device embed extractors, picked by StreamingSource.provider
+@Module
+@InstallIn(SingletonComponent::class)
+abstract class ExtractorModule {
+    @Binds
+    @IntoSet
+    abstract fun bindVidmolyExtractor(extractor: VidmolyExtractor): EmbedExtractor
+
+    @Binds
+    @IntoSet
+    abstract fun bindVidzyExtractor(extractor: VidzyExtractor): EmbedExtractor
+}
@@ -1,14 +1,29 @@
 package com.anisflix.di
 
+import android.content.Context
+import com.anisflix.BuildConfig
+import com.anisflix.data.remote.CachingDns
+import com.anisflix.data.remote.MirrorPool
+import com.anisflix.data.remote.MirrorPoolInterceptor
+import com.anisflix.data.remote.NetworkMetrics
+import com.anisflix.data.remote.OfflineCacheInterceptor
+import com.anisflix.data.remote.RemoteProxyBatchTransport
+import com.anisflix.data.remote.SampledBodyLoggingInterceptor
+import com.anisflix.data.remote.TmdbCachePolicyInterceptor
 import com.anisflix.utils.Constants
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
+import dagger.hilt.android.qualifiers.ApplicationContext
 import dagger.hilt.components.SingletonComponent
+import okhttp3.Cache
+import okhttp3.ConnectionPool
 import okhttp3.OkHttpClient
-import okhttp3.logging.HttpLoggingInterceptor
+import okhttp3.Request
 import retrofit2.Retrofit
 import retrofit2.converter.gson.GsonConverterFactory
+import java.io.File
+import java.util.concurrent.TimeUnit
 import javax.inject.Named
 import javax.inject.Singleton
 
@@ -18,15 +33,37 @@ object NetworkModule {
 
     @Provides
     @Singleton
-    fun provideOkHttpClient(): OkHttpClient {
-        val logging = HttpLoggingInterceptor().apply {
-            level = HttpLoggingInterceptor.Level.BODY
-        }
+    fun provideDns(@ApplicationContext context: Context): CachingDns {
+        return CachingDns(store = File(context.cacheDir, "dns_cache"))
+    }
+
+    @Provides
+    @Singleton
+    fun provideOkHttpClient(dns: CachingDns, metrics: NetworkMetrics): OkHttpClient {
         return OkHttpClient.Builder()
-            .addInterceptor(logging)
+            .dns(dns)
+            // Room for the prewarmed hosts (ConnectionPrewarmer) next to the ones in use
+            .connectionPool(ConnectionPool(MAX_IDLE_CONNECTIONS, 5, TimeUnit.MINUTES))
+            .eventListenerFactory(metrics.EventListenerFactory())
+            .apply {
+                if (BuildConfig.DEBUG) addInterceptor(SampledBodyLoggingInterceptor(BuildConfig.HTTP_BODY_LOG_SAMPLE_RATE))
+            }
             .build()
     }
     
+    // TMDB only: proxy and stream responses carry short-lived signed links and must not be cached.
+    // Shares the base client's connection pool and dispatcher.
+    @Provides
+    @Singleton
+    @Named("TMDB")
+    fun provideTmdbOkHttpClient(@ApplicationContext context: Context, okHttpClient: OkHttpClient): OkHttpClient {
+        return okHttpClient.newBuilder()
+            .cache(Cache(File(context.cacheDir, "tmdb_http"), TMDB_CACHE_BYTES))
+            .addInterceptor(OfflineCacheInterceptor(context))
+            .addNetworkInterceptor(TmdbCachePolicyInterceptor())
+            .build()
+    }
+
     @Provides
     @Singleton
     fun provideGson(): com.google.gson.Gson {
@@ -36,7 +73,7 @@ object NetworkModule {
     @Provides
     @Singleton
     @Named("TMDB")
-    fun provideTmdbRetrofit(okHttpClient: OkHttpClient): Retrofit {
+    fun provideTmdbRetrofit(@Named("TMDB") okHttpClient: OkHttpClient): Retrofit {
         return Retrofit.Builder()
             .baseUrl(Constants.TMDB_BASE_URL)
             .client(okHttpClient)
@@ -47,9 +84,34 @@ object NetworkModule {
     @Provides
     @Singleton
     @Named("Movix")
-    fun provideMovixRetrofit(okHttpClient: OkHttpClient): Retrofit {
+    fun provideMovixMirrorPool(): MirrorPool {
+        return MirrorPool(Constants.PROXY_MIRROR_URLS)
+    }
+
+    @Provides
+    @Singleton
+    @Named("Anisflix")
+    fun provideAnisflixMirrorPool(): MirrorPool {
+        return MirrorPool(Constants.ANISFLIX_API_MIRROR_URLS)
+    }
+
+    @Provides
+    @Singleton
+    @Named("Movix")
+    fun provideMovixRetrofit(okHttpClient: OkHttpClient, @Named("Movix") mirrors: MirrorPool): Retrofit {
+        return Retrofit.Builder()
+            .baseUrl(mirrors.primary)
+            .client(withMirrors(okHttpClient, mirrors, ::movixEndpointClass, setOf(RemoteProxyBatchTransport.ENDPOINT_CLASS)))
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+    }
+
+    @Provides
+    @Singleton
+    @Named("MovixUpstream")
+    fun provideMovixUpstreamRetrofit(okHttpClient: OkHttpClient): Retrofit {
         return Retrofit.Builder()
-            .baseUrl(Constants.DEFAULT_PROXY_URL)
+            .baseUrl(Constants.MOVIX_UPSTREAM_URL)
             .client(okHttpClient)
             .addConverterFactory(GsonConverterFactory.create())
             .build()
@@ -58,10 +120,10 @@ object NetworkModule {
     @Provides
     @Singleton
     @Named("Anisflix")
-    fun provideAnisflixRetrofit(okHttpClient: OkHttpClient): Retrofit {
+    fun provideAnisflixRetrofit(okHttpClient: OkHttpClient, @Named("Anisflix") mirrors: MirrorPool): Retrofit {
         return Retrofit.Builder()
-            .baseUrl(Constants.ANISFLIX_API_URL)
-            .client(okHttpClient)
+            .baseUrl(mirrors.primary)
+            .client(withMirrors(okHttpClient, mirrors))
             .addConverterFactory(GsonConverterFactory.create())
             .build()
     }
@@ -78,9 +140,48 @@ object NetworkModule {
         return retrofit.create(com.anisflix.data.remote.api.MovixProxyApi::class.java)
     }
 
+    @Provides
+    @Singleton
+    fun provideMovixUpstreamApi(@Named("MovixUpstream") retrofit: Retrofit): com.anisflix.data.remote.api.MovixUpstreamApi {
+        return retrofit.create(com.anisflix.data.remote.api.MovixUpstreamApi::class.java)
+    }
+
+    @Provides
+    @Singleton
+    fun provideProxyBatchTransport(
+        api: com.anisflix.data.remote.api.MovixProxyApi,
+        @Named("Movix") mirrors: MirrorPool
+    ): com.anisflix.data.remote.ProxyBatchTransport {
+        return RemoteProxyBatchTransport(api, mirrors)
+    }
+
     @Provides
     @Singleton
     fun provideTvChannelsApi(@Named("Anisflix") retrofit: Retrofit): com.anisflix.data.remote.api.TvChannelsApi {
         return retrofit.create(com.anisflix.data.remote.api.TvChannelsApi::class.java)
     }
+
+    // A single mirror without optional routes has nothing to fail over to: the base client is used as is
+    private fun withMirrors(
+        okHttpClient: OkHttpClient,
+        mirrors: MirrorPool,
+        endpointClassOf: (Request) -> String = { MirrorPool.DEFAULT_ENDPOINT_CLASS },
+        optionalRoutes: Set<String> = emptySet()
+    ): OkHttpClient {
+        if (!mirrors.canFailOver && optionalRoutes.isEmpty()) return okHttpClient
+        return okHttpClient.newBuilder().addInterceptor(MirrorPoolInterceptor(mirrors, endpointClassOf, optionalRoutes)).build()
+    }
+
+    // Scrapers take seconds and vary per instance; link lookups in the Movix database are fast.
+    // The batch route is its own class: not every proxy serves it.
+    private fun movixEndpointClass(request: Request): String {
+        if (request.url.encodedPath.endsWith("/movix-proxy/batch")) return RemoteProxyBatchTransport.ENDPOINT_CLASS
+        val path = request.url.queryParameter("path") ?: return MirrorPool.DEFAULT_ENDPOINT_CLASS
+        return if (MOVIX_METADATA_PATHS.any { path.startsWith(it) }) "metadata" else "scraper"
+    }
+
+    private val MOVIX_METADATA_PATHS = listOf("tmdb/", "films/download/", "series/download/")
+
+    private const val TMDB_CACHE_BYTES = 20L * 1024 * 1024
+    private const val MAX_IDLE_CONNECTIONS = 10
 }
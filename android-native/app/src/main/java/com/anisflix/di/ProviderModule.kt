@@ -0,0 +1,43 @@
+package com.anisflix.di
+
+import com.anisflix.data.provider.AfterDarkSourceProvider
+import com.anisflix.data.provider.FStreamSourceProvider
+import com.anisflix.data.provider.MovieBoxSourceProvider
+import com.anisflix.data.provider.MovixDownloadSourceProvider
+import com.anisflix.data.provider.SourceProvider
+import com.anisflix.data.provider.TmdbSourceProvider
+import com.anisflix.data.provider.UniversalVOSourceProvider
+import dagger.Binds
+import dagger.Module
+import dagger.hilt.InstallIn
+import dagger.hilt.components.SingletonComponent
+import dagger.multibindings.IntoSet
+
+// Every upstream queried by the source fan-out. Add a provider by binding it here.
+@Module
+@InstallIn(SingletonComponent::class)
+abstract class ProviderModule {
+    @Binds
+    @IntoSet
+    abstract fun bindTmdbProvider(provider: TmdbSourceProvider): SourceProvider
+
+    @Binds
+    @IntoSet
+    abstract fun bindMovieBoxProvider(provider: MovieBoxSourceProvider): SourceProvider
+
+    @Binds
+    @IntoSet
+    abstract fun bindFStreamProvider(provider: FStreamSourceProvider): SourceProvider
+
+    @Binds
+    @IntoSet
+    abstract fun bindUniversalVOProvider(provider: UniversalVOSourceProvider): SourceProvider
+
+    @Binds
+    @IntoSet
+    abstract fun bindAfterDarkProvider(provider: AfterDarkSourceProvider): SourceProvider
+
+    @Binds
+    @IntoSet
+    abstract fun bindMovixDownloadProvider(provider: MovixDownloadSourceProvider): SourceProvider
+}
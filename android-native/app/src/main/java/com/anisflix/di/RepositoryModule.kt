@@ -40,4 +40,22 @@ abstract class RepositoryModule {
     abstract fun bindSettingsRepository(
         settingsRepositoryImpl: com.anisflix.data.repository.SettingsRepositoryImpl
     ): com.anisflix.domain.repository.SettingsRepository
+
+    @Binds
+    @Singleton
+    abstract fun bindStreamResolver(
+        streamResolverImpl: com.anisflix.data.repository.StreamResolverImpl
+    ): com.anisflix.domain.repository.StreamResolver
+
+    @Binds
+    @Singleton
+    abstract fun bindConnectionWarmer(
+        connectionPrewarmer: com.anisflix.data.remote.ConnectionPrewarmer
+    ): com.anisflix.domain.repository.ConnectionWarmer
+
+    @Binds
+    @Singleton
+    abstract fun bindSourceRanker(
+        sourceRankerImpl: com.anisflix.data.repository.SourceRankerImpl
+    ): com.anisflix.domain.repository.SourceRanker
 }
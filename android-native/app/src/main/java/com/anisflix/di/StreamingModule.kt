@@ -0,0 +1,26 @@
+package com.anisflix.di
+
+import com.anisflix.data.local.SourceCacheConfig
+import com.anisflix.data.repository.SourceFetchConfig
+import dagger.Module
+import dagger.Provides
+import dagger.hilt.InstallIn
+import dagger.hilt.components.SingletonComponent
+import javax.inject.Singleton
+
+@Module
+@InstallIn(SingletonComponent::class)
+object StreamingModule {
+
+    @Provides
+    @Singleton
+    fun provideSourceFetchConfig(): SourceFetchConfig {
+        return SourceFetchConfig()
+    }
+
+    @Provides
+    @Singleton
+    fun provideSourceCacheConfig(): SourceCacheConfig {
+        return SourceCacheConfig()
+    }
+}
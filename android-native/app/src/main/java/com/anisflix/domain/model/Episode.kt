@@ -15,3 +15,12 @@ data class Episode(
         return "https://image.tmdb.org/t/p/w500$stillPath"
     }
 }
+
+// The episode after the one playing, handed to GlobalPlayerManager so it can prefetch its sources
+data class UpcomingEpisode(
+    val seriesId: Int,
+    val season: Int,
+    val episode: Int,
+    val title: String,
+    val posterUrl: String?
+)
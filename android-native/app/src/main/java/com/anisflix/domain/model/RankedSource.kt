@@ -0,0 +1,17 @@
+package com.anisflix.domain.model
+
+// Per-signal scores in [0, 1] behind an automatic source choice, kept for debugging it
+data class SourceScore(
+    val language: Float,
+    val probe: Float,
+    val health: Float,
+    val quality: Float,
+    val container: Float,
+    val ttfbMs: Long?, // Null when the source wasn't probed or the probe failed
+    val total: Float
+)
+
+data class RankedSource(
+    val source: StreamingSource,
+    val score: SourceScore
+)
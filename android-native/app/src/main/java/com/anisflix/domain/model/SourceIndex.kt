@@ -0,0 +1,85 @@
+package com.anisflix.domain.model
+
+import com.anisflix.domain.repository.ContentLanguage
+import java.util.EnumMap
+
+/**
+ * One fetch's sources, parsed once: language and numeric quality per source, buckets per language
+ * and per provider, all in best-first order. Language switches and auto-selection are lookups.
+ *
+ * Best-first is provider priority first, then quality: a 1080p link from a low-priority provider
+ * doesn't jump ahead of the providers the registry (and the user's preferences) put first.
+ */
+class SourceIndex private constructor(
+    val ranked: List<StreamingSource>,
+    private val byLanguage: Map<ContentLanguage, List<StreamingSource>>,
+    private val byProvider: Map<String, List<StreamingSource>>,
+    private val heights: Map<String, Int>
+) {
+
+    val languages: Set<ContentLanguage> get() = byLanguage.keys
+
+    fun forLanguage(language: ContentLanguage): List<StreamingSource> = byLanguage[language].orEmpty()
+
+    fun forProvider(provider: String): List<StreamingSource> = byProvider[provider].orEmpty()
+
+    fun best(language: ContentLanguage): StreamingSource? = byLanguage[language]?.firstOrNull()
+
+    // Vertical resolution parsed from the quality label, 0 when unknown. Meant as an ABR cap, but
+    // nothing passes it to the player's track selection yet.
+    fun heightOf(source: StreamingSource): Int = heights[source.id] ?: parseHeight(source.quality)
+
+    companion object {
+        private val RESOLUTION = Regex("""(?<!\d)(2160|1440|1080|720|576|480|360|240)(?:p|\b)""", RegexOption.IGNORE_CASE)
+
+        val EMPTY = build(emptyList())
+
+        // [sources] in fetch order, which is provider priority order (SourceProviderRegistry). Ranked
+        // by origin in that order, then by parsed quality, highest first; ties keep the fetch order.
+        fun build(sources: List<StreamingSource>): SourceIndex {
+            val heights = HashMap<String, Int>(sources.size)
+            val originRanks = HashMap<String?, Int>()
+            for (source in sources) {
+                heights[source.id] = parseHeight(source.quality)
+                originRanks.putIfAbsent(source.origin, originRanks.size)
+            }
+            val ranked = sources.sortedWith(
+                compareBy<StreamingSource> { originRanks.getValue(it.origin) }.thenByDescending { heights.getValue(it.id) }
+            )
+
+            val byLanguage = EnumMap<ContentLanguage, MutableList<StreamingSource>>(ContentLanguage::class.java)
+            val byProvider = LinkedHashMap<String, MutableList<StreamingSource>>()
+            for (source in ranked) {
+                byLanguage.getOrPut(languageOf(source)) { ArrayList() }.add(source)
+                byProvider.getOrPut(source.provider) { ArrayList() }.add(source)
+            }
+            return SourceIndex(ranked, byLanguage, byProvider, heights)
+        }
+
+        // Same buckets as the language tabs: anything neither French nor subtitled is VO
+        fun languageOf(source: StreamingSource): ContentLanguage {
+            val language = source.language
+            return when {
+                language.contains("vf", ignoreCase = true) || language.contains("french", ignoreCase = true) -> ContentLanguage.VF
+                language.contains("vostfr", ignoreCase = true) -> ContentLanguage.VOSTFR
+                else -> ContentLanguage.VO
+            }
+        }
+
+        // "1080p", "720", "4K", "FHD", "HD"... -> 1080, 720, 2160, 1080, 720; 0 when unknown
+        fun parseHeight(quality: String): Int {
+            val label = quality.trim()
+            if (label.isEmpty()) return 0
+            RESOLUTION.find(label)?.let { return it.groupValues[1].toInt() }
+            val upper = label.uppercase()
+            return when {
+                upper.contains("4K") || upper.contains("UHD") -> 2160
+                upper.contains("2K") || upper.contains("QHD") -> 1440
+                upper.contains("FHD") || upper.contains("FULL HD") -> 1080
+                upper.contains("HD") -> 720
+                upper.contains("SD") -> 480
+                else -> 0
+            }
+        }
+    }
+}
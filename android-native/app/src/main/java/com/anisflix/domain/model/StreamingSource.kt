@@ -9,8 +9,18 @@ data class StreamingSource(
     val type: String,     // hls, mp4
     val origin: String?,  // fstream, tmdb, etc.
     val tracks: List<Subtitle>? = null,
-    val headers: Map<String, String>? = null
-)
+    val headers: Map<String, String>? = null,
+    val expiresAt: Long? = null // Wall-clock ms when the signed URL stops working, null if unknown
+) {
+    fun expiresWithin(marginMs: Long, now: Long = System.currentTimeMillis()): Boolean {
+        return expiresAt != null && expiresAt - now <= marginMs
+    }
+
+    companion object {
+        // Time playback needs from a URL: open it, then fetch the playlist and first segments
+        const val EXPIRY_MARGIN_MS = 2 * 60_000L
+    }
+}
 
 data class Subtitle(
     val url: String,
@@ -18,3 +28,12 @@ data class Subtitle(
     val code: String,
     val flag: String
 )
+
+data class SourceFetchResult(
+    val sources: List<StreamingSource>,
+    val timedOutProviders: Set<String> = emptySet(), // Providers that missed their deadline or the overall budget
+    val skippedProviders: Set<String> = emptySet()   // Providers a preferred-first lookup did not query
+) {
+    val isPartial: Boolean get() = timedOutProviders.isNotEmpty()
+    val hasMore: Boolean get() = isPartial || skippedProviders.isNotEmpty()
+}
@@ -0,0 +1,9 @@
+package com.anisflix.domain.repository
+
+interface ConnectionWarmer {
+    // TMDB, its image host and the Movix endpoints: needed by nearly every screen
+    fun warmCriticalHosts()
+
+    // Opens connections to the hosts of these URLs ahead of the requests that will need them
+    fun warm(urls: List<String>)
+}
@@ -0,0 +1,10 @@
+package com.anisflix.domain.repository
+
+import com.anisflix.domain.model.RankedSource
+import com.anisflix.domain.model.StreamingSource
+
+interface SourceRanker {
+    // Best-first: language preference, host responsiveness, provider track record, quality for this
+    // screen and container. Probes the leading candidates over the network.
+    suspend fun rank(sources: List<StreamingSource>, language: ContentLanguage): List<RankedSource>
+}
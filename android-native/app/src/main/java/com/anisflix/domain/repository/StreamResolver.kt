@@ -0,0 +1,12 @@
+package com.anisflix.domain.repository
+
+import com.anisflix.domain.model.StreamingSource
+
+interface StreamResolver {
+    // Playable version of the source: embed pages are extracted to their direct stream, other
+    // sources come back unchanged
+    suspend fun resolve(source: StreamingSource): Result<StreamingSource>
+
+    // Starts extracting the first few sources that need it, so playback doesn't wait on it
+    fun prefetch(sources: List<StreamingSource>)
+}
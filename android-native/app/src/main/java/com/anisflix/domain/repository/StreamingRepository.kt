@@ -1,9 +1,34 @@
 package com.anisflix.domain.repository
 
+import com.anisflix.domain.model.SourceFetchResult
 import com.anisflix.domain.model.StreamingSource
+import kotlinx.coroutines.flow.Flow
 
 interface StreamingRepository {
-    suspend fun getMovieSources(movieId: Int): Result<List<StreamingSource>>
-    suspend fun getSeriesSources(seriesId: Int, season: Int, episode: Int): Result<List<StreamingSource>>
+    // Bounded by the configured latency budget: may be partial, see SourceFetchResult.timedOutProviders
+    suspend fun getMovieSources(movieId: Int): Result<SourceFetchResult>
+    suspend fun getSeriesSources(seriesId: Int, season: Int, episode: Int): Result<SourceFetchResult>
+    // Ahead-of-time lookup of one provider (all of them if unknown) at prefetch priority; the result
+    // is cached so the actual switch to that episode is immediate
     suspend fun getNextEpisodeSources(provider: String, seriesId: Int, season: Int, episode: Int): Result<List<StreamingSource>>
+    // getSeriesSources at background priority, to warm the source cache ahead of the user
+    suspend fun preloadSeriesSources(seriesId: Int, season: Int, episode: Int): Result<SourceFetchResult>
+
+    // Progressive variants: emit the accumulated source list each time a provider completes
+    fun streamMovieSources(movieId: Int): Flow<List<StreamingSource>>
+    fun streamSeriesSources(seriesId: Int, season: Int, episode: Int): Flow<List<StreamingSource>>
+
+    // Preferred-first variants: query the providers most likely to have [language] first and stop
+    // at the first playable match. The others are listed in SourceFetchResult.skippedProviders and
+    // answered from cache by a later full lookup.
+    suspend fun getPreferredMovieSources(movieId: Int, language: ContentLanguage): Result<SourceFetchResult>
+    suspend fun getPreferredSeriesSources(seriesId: Int, season: Int, episode: Int, language: ContentLanguage): Result<SourceFetchResult>
+
+    // Current version of a source whose signed URL is about to expire: same id, fresh URL. Asks only
+    // the provider that produced it; fails when that provider no longer lists it.
+    suspend fun refreshMovieSource(movieId: Int, source: StreamingSource): Result<StreamingSource>
+    suspend fun refreshEpisodeSource(seriesId: Int, season: Int, episode: Int, source: StreamingSource): Result<StreamingSource>
+
+    // Feeds provider preferences (see getPreferred*)
+    fun onSourcePlayed(source: StreamingSource)
 }
@@ -34,6 +34,7 @@ import androidx.compose.material3.Icon
 import androidx.compose.material3.IconButton
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.Text
+import androidx.compose.material3.TextButton
 import androidx.compose.runtime.Composable
 import androidx.compose.runtime.collectAsState
 import androidx.compose.runtime.getValue
@@ -199,6 +200,13 @@ fun MovieDetailScreen(
                             }
                     }
                 }
+
+                // Only the preferred providers were asked: the rest load on demand
+                if (state.hasMoreSources && !state.isLoadingSources) {
+                    TextButton(onClick = { viewModel.loadAllSources() }) {
+                        Text("Plus de sources", color = RedPrimary)
+                    }
+                }
             }
             
             Spacer(modifier = Modifier.height(24.dp))
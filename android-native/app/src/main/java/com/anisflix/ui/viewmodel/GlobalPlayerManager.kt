@@ -9,8 +9,19 @@ import androidx.media3.common.util.UnstableApi
 import androidx.media3.exoplayer.ExoPlayer
 import androidx.media3.session.MediaSession
 import com.anisflix.domain.model.Media
+import com.anisflix.domain.model.SourceIndex
 import com.anisflix.domain.model.StreamingSource
 import com.anisflix.domain.model.Subtitle
+import com.anisflix.domain.model.UpcomingEpisode
+import com.anisflix.domain.repository.StreamResolver
+import com.anisflix.domain.repository.StreamingRepository
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
@@ -40,10 +51,30 @@ data class PlayerState(
 @Singleton
 class GlobalPlayerManager @Inject constructor(
     private val application: Application,
-    private val dataSourceFactory: androidx.media3.datasource.DataSource.Factory
+    private val dataSourceFactory: androidx.media3.datasource.DataSource.Factory,
+    private val streamingRepository: StreamingRepository,
+    private val streamResolver: StreamResolver
 ) {
     // ... (existing code)
 
+    // Fraction of the episode after which the next one is looked up and resolved, so the
+    // handoff at the end doesn't wait on the providers
+    var nextEpisodePrefetchThreshold = 0.8f
+
+    private val prefetchScope = CoroutineScope(SupervisorJob() + Dispatchers.Main.immediate)
+    private var progressJob: Job? = null
+    private var nextEpisodeJob: Job? = null
+    // Episodes after the one playing, in order; the handoff chain stops after the last
+    private var upcomingEpisodes: List<UpcomingEpisode> = emptyList()
+    private var preparedNextSource: StreamingSource? = null
+    private var listenedPlayer: Player? = null
+
+    private val endListener = object : Player.Listener {
+        override fun onPlaybackStateChanged(playbackState: Int) {
+            if (playbackState == Player.STATE_ENDED && !playNextEpisode()) lookUpNextEpisode()
+        }
+    }
+
     fun play(
         media: Media,
         source: StreamingSource,
@@ -51,9 +82,15 @@ class GlobalPlayerManager @Inject constructor(
         posterUrl: String?,
         subtitles: List<Subtitle> = emptyList(),
         startTime: Long = 0L,
-        nextMedia: Media? = null
+        nextMedia: Media? = null,
+        upcomingEpisodes: List<UpcomingEpisode> = emptyList()
     ) {
         val player = getPlayer()
+        if (listenedPlayer !== player) {
+            player.addListener(endListener)
+            listenedPlayer = player
+        }
+        watchForNextEpisode(source, upcomingEpisodes)
 
         // Update State
         _playerState.update {
@@ -103,6 +140,103 @@ class GlobalPlayerManager @Inject constructor(
         }
     }
     
+    // Switches to the prefetched next episode. False when it isn't ready (or its link is about to
+    // expire): the caller should go through the regular lookup instead.
+    fun playNextEpisode(): Boolean {
+        val next = upcomingEpisodes.firstOrNull() ?: return false
+        val source = preparedNextSource ?: return false
+        val media = _playerState.value.currentMedia ?: return false
+        if (source.expiresWithin(StreamingSource.EXPIRY_MARGIN_MS)) return false
+
+        val selectedSubtitle = _playerState.value.selectedSubtitle
+        val subtitles = source.tracks.orEmpty()
+        streamingRepository.onSourcePlayed(source)
+        play(
+            media = media,
+            source = source,
+            title = next.title,
+            posterUrl = next.posterUrl ?: _playerState.value.currentPosterUrl,
+            subtitles = subtitles,
+            upcomingEpisodes = upcomingEpisodes.drop(1)
+        )
+        // Keep the subtitle language picked for the previous episode
+        subtitles.firstOrNull { it.code == selectedSubtitle?.code }?.let { setSubtitle(it) }
+        return true
+    }
+
+    // The episode ended before the prefetch had a playable link: finish the one in flight, or do
+    // the regular lookup, then switch
+    private fun lookUpNextEpisode() {
+        val next = upcomingEpisodes.firstOrNull() ?: return
+        val current = _playerState.value.currentSource ?: return
+        val prefetch = nextEpisodeJob
+        progressJob?.cancel()
+        nextEpisodeJob = prefetchScope.launch {
+            prefetch?.join()
+            if (preparedNextSource?.expiresWithin(StreamingSource.EXPIRY_MARGIN_MS) != false) {
+                preparedNextSource = null
+                val sources = streamingRepository.getPreferredSeriesSources(
+                    seriesId = next.seriesId,
+                    season = next.season,
+                    episode = next.episode,
+                    language = SourceIndex.languageOf(current)
+                ).getOrNull()?.sources.orEmpty()
+                preparedNextSource = resolveNext(current, sources) ?: return@launch
+            }
+            playNextEpisode()
+        }
+    }
+
+    private fun watchForNextEpisode(current: StreamingSource, upcoming: List<UpcomingEpisode>) {
+        cancelNextEpisode()
+        upcomingEpisodes = upcoming
+        val next = upcoming.firstOrNull() ?: return
+
+        progressJob = prefetchScope.launch {
+            while (isActive) {
+                delay(PROGRESS_POLL_MS)
+                val duration = getDuration()
+                if (duration > 0 && getCurrentPosition() >= duration * nextEpisodePrefetchThreshold) {
+                    prefetchNextEpisode(current, next)
+                    break
+                }
+            }
+        }
+    }
+
+    private fun cancelNextEpisode() {
+        progressJob?.cancel()
+        nextEpisodeJob?.cancel()
+        upcomingEpisodes = emptyList()
+        preparedNextSource = null
+    }
+
+    private fun prefetchNextEpisode(current: StreamingSource, next: UpcomingEpisode) {
+        nextEpisodeJob = prefetchScope.launch {
+            // Same provider first: it just served this episode, so it most likely has the next one
+            val sources = streamingRepository.getNextEpisodeSources(
+                provider = current.origin ?: current.provider,
+                seriesId = next.seriesId,
+                season = next.season,
+                episode = next.episode
+            ).getOrNull().orEmpty()
+            preparedNextSource = resolveNext(current, sources)
+        }
+    }
+
+    // First source of the next episode the player can open. Stays in the language being watched
+    // (no automatic switch to another one), same provider first. An embed whose extraction fails
+    // is skipped: the player can't play the embed page itself.
+    private suspend fun resolveNext(current: StreamingSource, sources: List<StreamingSource>): StreamingSource? {
+        val candidates = SourceIndex.build(sources)
+            .forLanguage(SourceIndex.languageOf(current))
+            .sortedByDescending { it.provider == current.provider }
+        for (candidate in candidates.take(MAX_RESOLVE_ATTEMPTS)) {
+            streamResolver.resolve(candidate).getOrNull()?.let { return it }
+        }
+        return null
+    }
+
     fun setSubtitle(subtitle: Subtitle?) {
         _playerState.update { it.copy(selectedSubtitle = subtitle) }
         // TODO: Apply to ExoPlayer (Side-loading logic or track selection)
@@ -150,6 +284,7 @@ class GlobalPlayerManager @Inject constructor(
         exoPlayer?.pause()
         exoPlayer?.stop()
         exoPlayer?.clearMediaItems()
+        cancelNextEpisode()
         _playerState.update { 
             it.copy(
                 isPresented = false, 
@@ -188,5 +323,11 @@ class GlobalPlayerManager @Inject constructor(
         mediaSession = null
         exoPlayer?.release()
         exoPlayer = null
+        listenedPlayer = null
+    }
+
+    companion object {
+        private const val PROGRESS_POLL_MS = 2_000L
+        private const val MAX_RESOLVE_ATTEMPTS = 3
     }
 }
@@ -4,16 +4,26 @@ import androidx.lifecycle.SavedStateHandle
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.anisflix.domain.model.Media
+import com.anisflix.domain.model.SourceIndex
 import com.anisflix.domain.model.StreamingSource
 import com.anisflix.domain.model.Subtitle
+import com.anisflix.domain.repository.ConnectionWarmer
+import com.anisflix.domain.repository.ContentLanguage
+import com.anisflix.domain.repository.SettingsRepository
+import com.anisflix.domain.repository.StreamResolver
 import com.anisflix.domain.repository.StreamingRepository
 import com.anisflix.domain.repository.TMDBRepository
 import com.anisflix.domain.repository.WatchProgressRepository
 import com.anisflix.ui.viewmodel.GlobalPlayerManager
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.onCompletion
 import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
 import javax.inject.Inject
@@ -26,6 +36,7 @@ data class MovieDetailState(
     val filteredSources: List<StreamingSource> = emptyList(),
     val selectedLanguage: String = "VF", // VF, VOSTFR, VO
     val isLoadingSources: Boolean = false,
+    val hasMoreSources: Boolean = false, // Some providers were not queried yet (see loadAllSources)
     val error: String? = null
 )
 
@@ -34,7 +45,10 @@ class MovieDetailViewModel @Inject constructor(
     savedStateHandle: SavedStateHandle,
     private val tmdbRepository: TMDBRepository,
     private val streamingRepository: StreamingRepository,
+    private val streamResolver: StreamResolver,
     private val watchProgressRepository: WatchProgressRepository,
+    private val settingsRepository: SettingsRepository,
+    private val connectionWarmer: ConnectionWarmer,
     private val playerManager: GlobalPlayerManager
 ) : ViewModel() {
 
@@ -44,6 +58,8 @@ class MovieDetailViewModel @Inject constructor(
     val state: StateFlow<MovieDetailState> = _state.asStateFlow()
 
     init {
+        // Details and sources come next; connections may have idled out since startup
+        connectionWarmer.warmCriticalHosts()
         loadData()
     }
 
@@ -75,77 +91,144 @@ class MovieDetailViewModel @Inject constructor(
         }
     }
 
+    // Set once the user picks a language tab, so late providers don't override their choice
+    private var languageChosenByUser = false
+
+    // Rebuilt on each provider batch; language tabs read from it
+    private var sourceIndex = SourceIndex.EMPTY
+
+    // Re-fetches listed links shortly before their signature expires
+    private var expiryRefreshJob: Job? = null
+    // Sources whose provider no longer lists them: not retried
+    private val unrefreshable = mutableSetOf<String>()
+
+    // Content language from the settings, asked for first
+    private var preferredLanguage = ContentLanguage.VF
+    private var allSourcesJob: Job? = null
+
     private fun loadSources() {
         viewModelScope.launch {
             _state.update { it.copy(isLoadingSources = true) }
-            val sourcesResult = streamingRepository.getMovieSources(movieId)
-            
-            val sources = sourcesResult.getOrElse { emptyList() }
-            
-            // Auto-detect best language to select
-            val hasVF = sources.any { it.language.equals("VF", ignoreCase = true) || it.language.contains("french", ignoreCase = true) }
-            val hasVOSTFR = sources.any { it.language.contains("vostfr", ignoreCase = true) }
-            
-            val initialLang = when {
-                hasVF -> "VF"
-                hasVOSTFR -> "VOSTFR"
-                else -> "VO"
-            }
-            
-            _state.update {
-                it.copy(
-                    sources = sources,
-                    selectedLanguage = initialLang,
-                    isLoadingSources = false
-                )
+            preferredLanguage = settingsRepository.contentLanguage.first()
+
+            // Only the providers likely to have the preferred language; the others on demand
+            val preferred = streamingRepository.getPreferredMovieSources(movieId, preferredLanguage).getOrNull()
+            if (preferred != null && preferred.sources.isNotEmpty()) {
+                showSources(preferred.sources)
+                _state.update { it.copy(isLoadingSources = false, hasMoreSources = preferred.hasMore) }
+            } else {
+                loadAllSources()
             }
-            filterSources(initialLang)
+        }
+    }
+
+    // Every provider. Those already asked by the preferred lookup answer from the source cache.
+    fun loadAllSources() {
+        if (allSourcesJob != null) return
+        _state.update { it.copy(isLoadingSources = it.sources.isEmpty(), hasMoreSources = false) }
+        allSourcesJob = viewModelScope.launch {
+            // Sources arrive provider by provider: show the list as soon as the first one answers
+            streamingRepository.streamMovieSources(movieId)
+                .catch { e -> e.printStackTrace() }
+                .onCompletion { _state.update { it.copy(isLoadingSources = false) } }
+                .collect { sources -> showSources(sources) }
+        }
+    }
+
+    private fun showSources(sources: List<StreamingSource>) {
+        sourceIndex = SourceIndex.build(sources)
+        val language = if (languageChosenByUser) _state.value.selectedLanguage else detectInitialLanguage()
+        _state.update {
+            it.copy(
+                sources = sourceIndex.ranked,
+                selectedLanguage = language,
+                isLoadingSources = false
+            )
+        }
+        filterSources(language)
+    }
+
+    // Auto-detect best language to select: the preferred one when available
+    private fun detectInitialLanguage(): String {
+        val languages = sourceIndex.languages
+        return when {
+            preferredLanguage in languages -> preferredLanguage.name
+            ContentLanguage.VF in languages -> "VF"
+            ContentLanguage.VOSTFR in languages -> "VOSTFR"
+            else -> "VO"
         }
     }
 
     fun selectLanguage(language: String) {
+        languageChosenByUser = true
         _state.update { it.copy(selectedLanguage = language) }
         filterSources(language)
+        // A language the preferred providers didn't have: ask the others
+        if (_state.value.filteredSources.isEmpty() && _state.value.hasMoreSources) loadAllSources()
     }
 
     private fun filterSources(language: String) {
-        val currentSources = _state.value.sources
-        val filtered = currentSources.filter { source ->
-            val lang = source.language.lowercase()
-            when (language) {
-                "VF" -> lang.contains("vf") || lang.contains("french")
-                "VOSTFR" -> lang.contains("vostfr")
-                else -> !lang.contains("vf") && !lang.contains("french") && !lang.contains("vostfr") // VO/English
+        val tab = ContentLanguage.values().firstOrNull { it.name == language } ?: ContentLanguage.VO
+        val filtered = sourceIndex.forLanguage(tab)
+        _state.update { it.copy(filteredSources = filtered) }
+        // Extract the top embeds now so tapping play doesn't wait on it, and open connections to
+        // the hosts likely to be played
+        streamResolver.prefetch(filtered)
+        connectionWarmer.warm(filtered.take(VISIBLE_SOURCES).map { it.url })
+        scheduleExpiryRefresh()
+    }
+
+    private fun scheduleExpiryRefresh() {
+        expiryRefreshJob?.cancel()
+        val visible = _state.value.filteredSources.take(VISIBLE_SOURCES).filter { it.id !in unrefreshable }
+        val nextExpiry = visible.mapNotNull { it.expiresAt }.minOrNull() ?: return
+        expiryRefreshJob = viewModelScope.launch {
+            delay((nextExpiry - EXPIRY_REFRESH_LEAD_MS - System.currentTimeMillis()).coerceAtLeast(MIN_REFRESH_DELAY_MS))
+            val refreshed = HashMap<String, StreamingSource>()
+            for (source in visible.filter { it.expiresWithin(EXPIRY_REFRESH_LEAD_MS) }) {
+                val fresh = streamingRepository.refreshMovieSource(movieId, source).getOrNull()
+                // A link that would be due again right away (the provider hands out short-lived
+                // ones) isn't retried, or this would loop
+                if (fresh != null && !fresh.expiresWithin(EXPIRY_REFRESH_LEAD_MS)) {
+                    refreshed[source.id] = fresh
+                } else {
+                    unrefreshable += source.id
+                }
             }
+            showSources(_state.value.sources.map { refreshed[it.id] ?: it })
         }
-        _state.update { it.copy(filteredSources = filtered) }
     }
 
     fun playMovie(source: StreamingSource) {
         val movie = _state.value.movie ?: return
         
-        // Extract stream logic if needed (e.g. for some providers)
-        // For now, assuming direct URL or Repository handles extraction
-        // StreamingRepository usually returns Extractable sources? 
-        // If StreamingRepository returns raw sources (like upstream), we need extraction step.
-        // Reviewing previous context: StreamingRepositoryImpl returns logic with extraction if implied?
-        // Actually, typically Repository returns "Sources". We might need a "StreamingService.extract(source)" step.
-        // Let's assume for now sources are play-ready or we implement extraction here.
-        // Refactoring: Extraction logic is better in Repository or UseCase.
-        // I will assume for Phase 4 step 1 that sources are mostly usable or I will add extraction call.
-        
-        // TODO: Implement Source Extraction for providers that need it (Vidmoly, etc.)
-        // For this task, passing source directly to GlobalPlayerManager.
-        
         // Fetch subtitles if any (async) - simplified for now
         val subs: List<Subtitle> = emptyList() // Fetch from repo later
         
-        playerManager.play(
-            media = movie,
-            source = source,
-            title = movie.title,
-            posterUrl = movie.getPosterUrl(),
-            subtitles = subs
-        )
+        viewModelScope.launch {
+            // Just in time: a link about to expire is re-fetched rather than failing at startup
+            val current = if (source.expiresWithin(StreamingSource.EXPIRY_MARGIN_MS)) {
+                streamingRepository.refreshMovieSource(movieId, source).getOrElse { source }
+            } else {
+                source
+            }
+            // Embed hosts (vidmoly, vidzy) are extracted on device, usually already by the prefetch.
+            // If extraction fails the player gets the embed URL as before.
+            val playable = streamResolver.resolve(current).getOrElse { current }
+            streamingRepository.onSourcePlayed(source)
+            playerManager.play(
+                media = movie,
+                source = playable,
+                title = movie.title,
+                posterUrl = movie.getPosterUrl(),
+                subtitles = subs
+            )
+        }
+    }
+
+    companion object {
+        private const val VISIBLE_SOURCES = 5 // Sources listed on the detail screen
+        private const val EXPIRY_REFRESH_LEAD_MS = 5 * 60_000L
+        private const val MIN_REFRESH_DELAY_MS = 30_000L
     }
 }
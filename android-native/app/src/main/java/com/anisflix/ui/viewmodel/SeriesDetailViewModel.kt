@@ -5,17 +5,26 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.anisflix.domain.model.Episode
 import com.anisflix.domain.model.Media
+import com.anisflix.domain.model.RankedSource
 import com.anisflix.domain.model.Season
 import com.anisflix.domain.model.StreamingSource
 import com.anisflix.domain.model.Subtitle
+import com.anisflix.domain.model.UpcomingEpisode
+import com.anisflix.domain.repository.ConnectionWarmer
+import com.anisflix.domain.repository.SettingsRepository
+import com.anisflix.domain.repository.SourceRanker
+import com.anisflix.domain.repository.StreamResolver
 import com.anisflix.domain.repository.StreamingRepository
 import com.anisflix.domain.repository.TMDBRepository
 import com.anisflix.domain.repository.WatchProgressRepository
 import com.anisflix.ui.viewmodel.GlobalPlayerManager
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
 import javax.inject.Inject
@@ -28,6 +37,7 @@ data class SeriesDetailState(
     val episodes: List<Episode> = emptyList(),
     val isLoadingEpisodes: Boolean = false,
     val isLoadingSources: Boolean = false,
+    val sourceRanking: List<RankedSource> = emptyList(), // Scores behind the last automatic choice
     val error: String? = null
 )
 
@@ -36,7 +46,11 @@ class SeriesDetailViewModel @Inject constructor(
     savedStateHandle: SavedStateHandle,
     private val tmdbRepository: TMDBRepository,
     private val streamingRepository: StreamingRepository,
+    private val streamResolver: StreamResolver,
+    private val sourceRanker: SourceRanker,
+    private val connectionWarmer: ConnectionWarmer,
     private val watchProgressRepository: WatchProgressRepository,
+    private val settingsRepository: SettingsRepository,
     private val playerManager: GlobalPlayerManager
 ) : ViewModel() {
 
@@ -45,7 +59,15 @@ class SeriesDetailViewModel @Inject constructor(
     private val _state = MutableStateFlow(SeriesDetailState())
     val state: StateFlow<SeriesDetailState> = _state.asStateFlow()
 
+    // Binge mode: after BINGE_MIN_EPISODES episodes in a row, the rest of the season is looked up
+    // in the background so the next taps are served from the source cache
+    private var lastPlayed: Pair<Int, Int>? = null // season, episode
+    private var consecutiveEpisodes = 0
+    private var bingeJob: Job? = null
+
     init {
+        // Season lists and source lookups come next; connections may have idled out since startup
+        connectionWarmer.warmCriticalHosts()
         loadData()
     }
 
@@ -86,6 +108,7 @@ class SeriesDetailViewModel @Inject constructor(
 
     fun selectSeason(season: Season) {
         if (_state.value.selectedSeason == season) return
+        stopBinge()
         _state.update { it.copy(selectedSeason = season) }
         loadEpisodes(season)
     }
@@ -114,30 +137,41 @@ class SeriesDetailViewModel @Inject constructor(
             _state.update { it.copy(isLoadingSources = true) }
             
             val seasonNum = _state.value.selectedSeason?.seasonNumber ?: 1
+            trackBinge(seasonNum, episode.episodeNumber)
             
-            // Fetch sources for this episode
-            val sourcesResult = streamingRepository.getEpisodeSources(seriesId, seasonNum, episode.episodeNumber)
-            val sources = sourcesResult.getOrElse { emptyList() }
+            // Ask the providers likely to have the preferred language first and start playback on
+            // the first match, without querying the others
+            val language = settingsRepository.contentLanguage.first()
+            val sources = streamingRepository.getPreferredSeriesSources(seriesId, seasonNum, episode.episodeNumber, language)
+                .onFailure { it.printStackTrace() }
+                .getOrNull()?.sources.orEmpty()
             
             if (sources.isNotEmpty()) {
-                // Auto-select best source (French first, then VO)
-                // Logic: VF > VOSTFR > VO
-                val vf = sources.firstOrNull { it.language.contains("VF", true) || it.language.contains("French", true) }
-                val vostfr = sources.firstOrNull { it.language.contains("VOSTFR", true) }
-                val vo = sources.firstOrNull() // Fallback to first
-                
-                val bestSource = vf ?: vostfr ?: vo
+                // Auto-select best source: language first, then host responsiveness, provider
+                // health, quality and container
+                val ranking = sourceRanker.rank(sources, language)
+                _state.update { it.copy(sourceRanking = ranking) }
                 
-                bestSource?.let { source ->
+                ranking.firstOrNull()?.source?.let { source ->
                      val series = _state.value.series
                      val title = "${series?.title} - S${seasonNum}E${episode.episodeNumber} - ${episode.name}"
+                     // A link about to expire is re-fetched rather than failing at startup
+                     val current = if (source.expiresWithin(StreamingSource.EXPIRY_MARGIN_MS)) {
+                         streamingRepository.refreshEpisodeSource(seriesId, seasonNum, episode.episodeNumber, source).getOrElse { source }
+                     } else {
+                         source
+                     }
+                     // Embed hosts are extracted on device; fall back to the embed URL on failure
+                     val playable = streamResolver.resolve(current).getOrElse { current }
+                     streamingRepository.onSourcePlayed(source)
                      
                      playerManager.play(
                          media = series!!, // Should be valid if we are here
-                         source = source,
+                         source = playable,
                          title = title,
                          posterUrl = episode.stillPath?.let { "https://image.tmdb.org/t/p/w500$it" } ?: series.getPosterUrl(),
-                         startTime = 0 // Or check watch progress
+                         startTime = 0, // Or check watch progress
+                         upcomingEpisodes = upcomingAfter(episode, seasonNum)
                      )
                 }
             } else {
@@ -146,4 +180,65 @@ class SeriesDetailViewModel @Inject constructor(
              _state.update { it.copy(isLoadingSources = false) }
         }
     }
+
+    private fun trackBinge(season: Int, episode: Int) {
+        val previous = lastPlayed
+        lastPlayed = season to episode
+        if (previous == season to episode) return // Replay
+
+        if (previous != null && previous.first == season && previous.second + 1 == episode) {
+            consecutiveEpisodes++
+        } else {
+            consecutiveEpisodes = 1
+            stopBinge()
+        }
+        if (consecutiveEpisodes >= BINGE_MIN_EPISODES && bingeJob?.isActive != true) {
+            startBinge(season, episode)
+        }
+    }
+
+    private fun startBinge(season: Int, currentEpisode: Int) {
+        val remaining = _state.value.episodes
+            .map { it.episodeNumber }
+            .filter { it > currentEpisode }
+            .sorted()
+        if (remaining.isEmpty()) return
+
+        bingeJob = viewModelScope.launch {
+            // One episode at a time, spaced out: this must never crowd out what the user is waiting on
+            for (episodeNumber in remaining) {
+                delay(BINGE_EPISODE_INTERVAL_MS)
+                streamingRepository.preloadSeriesSources(seriesId, season, episodeNumber)
+                    .onFailure { it.printStackTrace() }
+            }
+        }
+    }
+
+    private fun stopBinge() {
+        bingeJob?.cancel()
+        bingeJob = null
+    }
+
+    // Episodes of the loaded season that follow this one without a gap, for the player's
+    // ahead-of-time lookup and its handoffs from one to the next
+    private fun upcomingAfter(episode: Episode, seasonNum: Int): List<UpcomingEpisode> {
+        val state = _state.value
+        val byNumber = state.episodes.associateBy { it.episodeNumber }
+        return generateSequence(byNumber[episode.episodeNumber + 1]) { byNumber[it.episodeNumber + 1] }
+            .map { next ->
+                UpcomingEpisode(
+                    seriesId = seriesId,
+                    season = seasonNum,
+                    episode = next.episodeNumber,
+                    title = "${state.series?.title} - S${seasonNum}E${next.episodeNumber} - ${next.name}",
+                    posterUrl = next.stillPath?.let { "https://image.tmdb.org/t/p/w500$it" }
+                )
+            }
+            .toList()
+    }
+
+    companion object {
+        private const val BINGE_MIN_EPISODES = 2
+        private const val BINGE_EPISODE_INTERVAL_MS = 3_000L
+    }
 }
@@ -7,7 +7,17 @@ object Constants {
     
     // Placeholder for proxy URL - to be configured
     const val DEFAULT_PROXY_URL = "http://192.168.1.34:3000/api/" 
+
+    // Interchangeable proxy instances, first one is the primary (see MirrorPool). The Vercel
+    // deployment serves the same movix-proxy route (lib/handlers/movix-proxy.js). Batches only go
+    // to the instances that answer the batch route.
+    val PROXY_MIRROR_URLS = listOf(DEFAULT_PROXY_URL, "https://anisflix.vercel.app/api/")
+
+    // Movix API behind the proxy, called directly for the paths that allow it (SourceFetchConfig)
+    const val MOVIX_UPSTREAM_URL = "https://api.movix.cloud/api/"
     
     // Anisflix Backend
     const val ANISFLIX_API_URL = "https://anisflix.vercel.app/api/"
+    // Single instance for now (channels only exist on Vercel): no failover until a second one is added
+    val ANISFLIX_API_MIRROR_URLS = listOf(ANISFLIX_API_URL)
 }
@@ -0,0 +1,48 @@
+package com.anisflix.data.mapper
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class SignedUrlExpiryTest {
+
+    @Test
+    fun absoluteExpiryInSecondsOrMillis() {
+        assertEquals(1_700_000_000_000L, SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?e=1700000000"))
+        assertEquals(1_700_000_000_000L, SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?Expires=1700000000000&sig=x"))
+    }
+
+    @Test
+    fun lifetimeCountsFromTheSigningTime() {
+        assertEquals(1_700_003_600_000L, SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?t=1700000000&expires=3600"))
+        assertEquals(1_700_000_600_000L, SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?expiry=600&st=1700000000"))
+    }
+
+    @Test
+    fun smallValueWithoutSigningTimeIsNotAnExpiry() {
+        assertNull(SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?expires=3600"))
+        assertNull(SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?e=1&t=1700000000"))
+        assertNull(SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?exp=0"))
+        assertNull(SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?expires=3600&s=1700000000"))
+    }
+
+    @Test
+    fun laterAbsoluteParamStillCounts() {
+        assertEquals(1_700_000_000_000L, SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?e=2&deadline=1700000000"))
+    }
+
+    @Test
+    fun amazonAndAkamaiTokens() {
+        assertEquals(
+            1_700_000_300_000L,
+            SignedUrlExpiry.expiresAt("https://b.s3.amazonaws.com/a.mp4?X-Amz-Date=20231114T221320Z&X-Amz-Expires=300")
+        )
+        assertEquals(1_700_000_000_000L, SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?hdnts=st%3D1699990000~exp%3D1700000000~hmac%3Dab"))
+    }
+
+    @Test
+    fun noQueryNoExpiry() {
+        assertNull(SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8"))
+        assertNull(SignedUrlExpiry.expiresAt("https://cdn.example/a.m3u8?quality=1080"))
+    }
+}
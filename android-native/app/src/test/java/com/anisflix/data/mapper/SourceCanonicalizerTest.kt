@@ -0,0 +1,72 @@
+package com.anisflix.data.mapper
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Test
+
+class SourceCanonicalizerTest {
+
+    private fun assertSame(first: String, second: String) {
+        assertEquals(SourceCanonicalizer.stableIdString(first), SourceCanonicalizer.stableIdString(second))
+    }
+
+    private fun assertDistinct(first: String, second: String) {
+        assertNotEquals(SourceCanonicalizer.stableIdString(first), SourceCanonicalizer.stableIdString(second))
+    }
+
+    @Test
+    fun hashIdentifiesTheStreamOnUnsignedUrls() {
+        assertDistinct(
+            "https://player.example/player.php?hash=5f2b9c1e7d3a4b6c8e0f1a2b3c4d5e6f",
+            "https://player.example/player.php?hash=9a8b7c6d5e4f3a2b1c0d9e8f7a6b5c4d"
+        )
+        assertDistinct("https://player.example/embed/abc?hash=1", "https://player.example/embed/abc?hash=2")
+    }
+
+    @Test
+    fun episodeParamIsKept() {
+        assertDistinct("https://player.example/watch/123?e=1", "https://player.example/watch/123?e=2")
+        // Even next to a signature: a small number isn't a signing value
+        assertDistinct(
+            "https://cdn.example/watch/123?e=1&sig=aaaaaaaaaaaaaaaaaaaa",
+            "https://cdn.example/watch/123?e=2&sig=bbbbbbbbbbbbbbbbbbbb"
+        )
+    }
+
+    @Test
+    fun genericParamsStayWithoutAnySigningSign() {
+        assertDistinct("https://host.example/v.m3u8?token=movie-a", "https://host.example/v.m3u8?token=movie-b")
+        assertDistinct("https://host.example/v.m3u8?t=abc", "https://host.example/v.m3u8?t=def")
+        assertDistinct("https://host.example/v.m3u8?auth=1", "https://host.example/v.m3u8?auth=2")
+    }
+
+    @Test
+    fun signaturesAndExpiriesAreDropped() {
+        assertSame(
+            "https://cdn.example/hls/abc/master.m3u8?sig=0123456789abcdef0123&expires=1700000000",
+            "https://cdn.example/hls/abc/master.m3u8?sig=fedcba9876543210fedc&expires=1700003600"
+        )
+        // Generic names are dropped on a signed URL when they hold signing values
+        assertSame(
+            "https://cdn.example/v.mp4?exp=1700000000&hash=0123456789abcdef0123&ip=10.0.0.1&id=7",
+            "https://cdn.example/v.mp4?exp=1700009999&hash=aaaaaaaaaaaaaaaaaaaa&ip=192.168.1.2&id=7"
+        )
+        assertSame(
+            "https://bucket.s3.amazonaws.com/a.mp4?X-Amz-Date=20240101T000000Z&X-Amz-Expires=3600&X-Amz-Signature=abc",
+            "https://bucket.s3.amazonaws.com/a.mp4?X-Amz-Date=20240102T000000Z&X-Amz-Expires=600&X-Amz-Signature=def"
+        )
+    }
+
+    @Test
+    fun epochTimestampsAreDropped() {
+        assertSame("https://cdn.example/v.m3u8?t=1700000000&id=5", "https://cdn.example/v.m3u8?t=1700000999&id=5")
+        assertSame("https://cdn.example/v.m3u8?st=1700000000000", "https://cdn.example/v.m3u8?st=1700000999000")
+        assertDistinct("https://cdn.example/v.m3u8?t=42", "https://cdn.example/v.m3u8?t=43")
+    }
+
+    @Test
+    fun urlFormIsNormalised() {
+        assertSame("https://Host.Example:443/a/b/?y=2&x=1#frag", "http://host.example/a/b?x=1&y=2&utm_source=feed")
+        assertEquals("host.example/a?x=1", SourceCanonicalizer.canonicalUrl("https://host.example/a?x=1&_=123&cb=9"))
+    }
+}
@@ -0,0 +1,119 @@
+package com.anisflix.data.mapper
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import kotlin.random.Random
+
+// SourceClassifier must give the same answers as the contains() chains it replaced (kept below)
+class SourceClassifierTest {
+
+    @Test
+    fun languageMatchesBaselineOnKnownValues() {
+        val values = listOf(
+            "", "VF", "vf", "Vf", "VFQ", "vfq", "FR", "fr", "French", "FRENCH", "Français", "FRANÇAIS",
+            "français (canada)", "default", "Default", "EN", "en", "ENG", "eng", "English", "english dub",
+            "VO", "vo", "VOSTFR", "vostfr", "Subtitle", "subtitles", "English subtitle", "French subtitle",
+            "vf ", " vf", "vff", "fra", "deutsch", "ja", "VOST", "multi", "default audio", "İ", "Fİ", "vİ"
+        )
+        values.forEach { assertEquals(it, baselineLanguage(it), SourceClassifier.language(it)) }
+    }
+
+    @Test
+    fun providerMatchesBaselineOnKnownValues() {
+        val cases = listOf(
+            Triple("unknown", "", "https://vidmoly.to/embed-abc.html"),
+            Triple("VIDZY", "HD", "https://example.com/e/1"),
+            Triple("Player", "Vidmoly 1080p", "https://cdn.example/x.m3u8"),
+            Triple("darkibox", "720p", "https://example.com/v.mp4"), // darki isn't matched on the name
+            Triple("Server 2", "darki", "https://example.com/v.mp4"),
+            Triple("MovieBox", "", "https://example.com/v.mp4"),
+            Triple("vidzy", "moviebox", "https://vidmoly.me/x"), // Precedence: vidmoly first
+            Triple("Upstream", "1080p", "https://upstream.to/embed"),
+            Triple("", "", ""),
+            Triple("VİDZY", "", "")
+        )
+        cases.forEach { (provider, quality, url) ->
+            assertEquals("$provider|$quality|$url", baselineProvider(provider, quality, url), SourceClassifier.provider(provider, quality, url))
+        }
+    }
+
+    @Test
+    fun languageMatchesBaselineOnGeneratedValues() {
+        val random = Random(SEED)
+        repeat(GENERATED) {
+            val value = generate(random, LANGUAGE_FRAGMENTS)
+            assertEquals(value, baselineLanguage(value), SourceClassifier.language(value))
+        }
+    }
+
+    @Test
+    fun providerMatchesBaselineOnGeneratedValues() {
+        val random = Random(SEED)
+        repeat(GENERATED) {
+            val provider = generate(random, PROVIDER_FRAGMENTS)
+            val quality = generate(random, PROVIDER_FRAGMENTS)
+            val url = generate(random, PROVIDER_FRAGMENTS)
+            assertEquals(
+                "$provider|$quality|$url",
+                baselineProvider(provider, quality, url),
+                SourceClassifier.provider(provider, quality, url)
+            )
+        }
+    }
+
+    // Keywords, pieces and near misses of them, in random case, with noise in between
+    private fun generate(random: Random, fragments: List<String>): String {
+        val builder = StringBuilder()
+        repeat(random.nextInt(0, 5)) {
+            when (random.nextInt(4)) {
+                0 -> builder.append(NOISE[random.nextInt(NOISE.size)])
+                else -> {
+                    val fragment = fragments[random.nextInt(fragments.size)]
+                    val cut = if (random.nextInt(4) == 0) random.nextInt(fragment.length + 1) else fragment.length
+                    fragment.take(cut).forEach { c -> builder.append(if (random.nextBoolean()) c.uppercaseChar() else c) }
+                }
+            }
+        }
+        return builder.toString()
+    }
+
+    // --- Baseline (StreamingMappers before the classifier) ---
+
+    private fun baselineLanguage(raw: String): String {
+        val lower = raw.lowercase()
+        return when {
+            lower.contains("french") || lower.contains("français") || lower == "fr" || lower == "vf" || lower == "vfq" || lower == "default" -> "VF"
+            lower.contains("english") || lower == "en" || lower == "eng" || lower == "vo" -> "VO"
+            lower.contains("vostfr") || lower.contains("subtitle") -> "VOSTFR"
+            else -> "VF"
+        }
+    }
+
+    private fun baselineProvider(rawProvider: String, quality: String, url: String): String {
+        val lowerUrl = url.lowercase()
+        val lowerQuality = quality.lowercase()
+        val lowerProvider = rawProvider.lowercase()
+
+        return when {
+            lowerQuality.contains("vidmoly") || lowerUrl.contains("vidmoly") || lowerProvider.contains("vidmoly") -> "vidmoly"
+            lowerQuality.contains("vidzy") || lowerUrl.contains("vidzy") || lowerProvider.contains("vidzy") -> "vidzy"
+            lowerQuality.contains("darki") || lowerUrl.contains("darki") -> "darki"
+            lowerQuality.contains("moviebox") || lowerUrl.contains("moviebox") || lowerProvider.contains("moviebox") -> "moviebox"
+            else -> lowerProvider
+        }
+    }
+
+    companion object {
+        private const val SEED = 20_241_017L
+        private const val GENERATED = 50_000
+
+        private val LANGUAGE_FRAGMENTS = listOf(
+            "french", "français", "francais", "fr", "vf", "vfq", "default", "english", "en", "eng", "vo",
+            "vostfr", "vost", "subtitle", "sub", "ç", "İ"
+        )
+        private val PROVIDER_FRAGMENTS = listOf(
+            "vidmoly", "vidzy", "vid", "darki", "dark", "moviebox", "movie", "box", "https://", ".to/", "/embed-", "İ"
+        )
+        private val NOISE = listOf(" ", "-", "_", "/", "(", ")", "1080p", "HD", "Ç", "ß", "ς", "Σ", "̇", "𐐀", "é")
+    }
+}
@@ -0,0 +1,181 @@
+package com.anisflix.data.remote
+
+import okhttp3.Dns
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.net.InetAddress
+import java.net.UnknownHostException
+import java.util.concurrent.Executor
+
+class CachingDnsTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    // Answers 10.0.0.<n> for the n-th lookup, or fails while [down]
+    private class FakeResolver : Dns {
+        var calls = 0
+        var down = false
+
+        override fun lookup(hostname: String): List<InetAddress> {
+            if (down) throw UnknownHostException(hostname)
+            calls++
+            return listOf(address(hostname, calls))
+        }
+    }
+
+    // Runs background work only when asked
+    private class ManualExecutor : Executor {
+        val tasks = ArrayDeque<Runnable>()
+
+        override fun execute(command: Runnable) {
+            tasks.addLast(command)
+        }
+
+        fun runAll() {
+            while (tasks.isNotEmpty()) tasks.removeFirst().run()
+        }
+    }
+
+    private val config = DnsCacheConfig(maxEntries = 2, ttlMs = 60_000L, refreshAheadMs = 10_000L, staleMs = 120_000L)
+    private val resolver = FakeResolver()
+    private val executor = ManualExecutor()
+    private var now = 1_000_000L
+
+    private fun dns(store: java.io.File? = null, delegate: Dns = resolver) =
+        CachingDns(delegate, config, store, clock = { now }, executor = executor)
+
+    @Test
+    fun freshAnswerIsServedFromCache() {
+        val dns = dns()
+
+        val first = dns.lookup(HOST)
+        now += 30_000L
+        val second = dns.lookup(HOST)
+
+        assertEquals(first, second)
+        assertEquals(1, resolver.calls)
+        assertTrue(executor.tasks.isEmpty())
+    }
+
+    @Test
+    fun expiredAnswerIsResolvedAgain() {
+        val dns = dns()
+
+        dns.lookup(HOST)
+        now += 60_000L
+        val answer = dns.lookup(HOST)
+
+        assertEquals(listOf(address(HOST, 2)), answer)
+        assertEquals(2, resolver.calls)
+    }
+
+    @Test
+    fun answerNearExpiryIsRefreshedInTheBackground() {
+        val dns = dns()
+
+        dns.lookup(HOST)
+        now += 55_000L
+        // Still answered from cache, without waiting on the resolver
+        assertEquals(listOf(address(HOST, 1)), dns.lookup(HOST))
+        assertEquals(1, resolver.calls)
+        // One refresh per host, however many lookups happen meanwhile
+        dns.lookup(HOST)
+        assertEquals(1, executor.tasks.size)
+
+        executor.runAll()
+        assertEquals(2, resolver.calls)
+
+        // The refreshed answer has a new lifetime
+        now += 50_000L
+        assertEquals(listOf(address(HOST, 2)), dns.lookup(HOST))
+        assertEquals(2, resolver.calls)
+    }
+
+    @Test
+    fun failedRefreshKeepsTheCurrentAnswer() {
+        val dns = dns()
+
+        dns.lookup(HOST)
+        now += 55_000L
+        dns.lookup(HOST)
+        resolver.down = true
+        executor.runAll()
+
+        assertEquals(listOf(address(HOST, 1)), dns.lookup(HOST))
+    }
+
+    @Test
+    fun staleAnswerIsServedWhenTheResolverFails() {
+        val dns = dns()
+
+        dns.lookup(HOST)
+        resolver.down = true
+        now += 60_000L + 120_000L
+        assertEquals(listOf(address(HOST, 1)), dns.lookup(HOST))
+
+        // Past the stale window the error goes through
+        now += 1L
+        try {
+            dns.lookup(HOST)
+            fail("Expected UnknownHostException")
+        } catch (e: UnknownHostException) {
+            // Expected
+        }
+    }
+
+    @Test
+    fun leastRecentlyUsedHostIsEvicted() {
+        val dns = dns()
+
+        dns.lookup("a.example")
+        dns.lookup("b.example")
+        dns.lookup("a.example")
+        dns.lookup("c.example") // Evicts b
+        dns.lookup("a.example")
+        dns.lookup("b.example")
+
+        assertEquals(4, resolver.calls)
+    }
+
+    @Test
+    fun persistedAnswersSurviveARestart() {
+        val store = folder.newFile("dns_cache").also { it.delete() }
+        dns(store).lookup(HOST)
+        executor.runAll()
+        assertTrue(store.exists())
+
+        val offline = FakeResolver().apply { down = true }
+        val restarted = dns(store, offline)
+
+        // Fresh until the original expiry, then still usable as a stale answer
+        now += 30_000L
+        assertEquals(listOf(address(HOST, 1)), restarted.lookup(HOST))
+        now += 60_000L
+        assertEquals(listOf(address(HOST, 1)), restarted.lookup(HOST))
+        assertEquals(HOST, restarted.lookup(HOST).first().hostName)
+    }
+
+    @Test
+    fun malformedStoreLinesAreIgnored() {
+        val store = folder.newFile("dns_cache")
+        store.writeText("$HOST\tnot-a-number\t10.0.0.9\n$HOST\t${now + 60_000L}\n")
+
+        val answer = dns(store).lookup(HOST)
+
+        assertEquals(listOf(address(HOST, 1)), answer)
+        assertEquals(1, resolver.calls)
+    }
+
+    companion object {
+        private const val HOST = "api.example"
+
+        private fun address(hostname: String, n: Int): InetAddress {
+            return InetAddress.getByAddress(hostname, byteArrayOf(10, 0, 0, n.toByte()))
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.anisflix.data.remote
+
+import com.sun.net.httpserver.HttpServer
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.RequestBody.Companion.toRequestBody
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.util.Collections
+
+class MirrorPoolTest {
+
+    private val a = "https://a.example/api/"
+    private val b = "https://b.example/api/"
+
+    @Test
+    fun singleMirrorCannotFailOver() {
+        assertFalse(MirrorPool(listOf(a)).canFailOver)
+        assertFalse(MirrorPool(listOf(a, a)).canFailOver)
+        assertTrue(MirrorPool(listOf(a, b)).canFailOver)
+    }
+
+    @Test
+    fun unmeasuredMirrorIsSampledFirst() {
+        val pool = MirrorPool(listOf(a, b))
+        pool.recordSuccess(a, 100)
+        assertEquals(listOf(b, a), pool.ranked())
+    }
+
+    @Test
+    fun latencyIsRankedPerEndpointClass() {
+        val pool = MirrorPool(listOf(a, b))
+        // a is fast on metadata, slow on scrapers; b the other way around
+        repeat(5) {
+            pool.recordSuccess(a, 50, "metadata")
+            pool.recordSuccess(b, 400, "metadata")
+            pool.recordSuccess(a, 4_000, "scraper")
+            pool.recordSuccess(b, 1_000, "scraper")
+        }
+        assertEquals(listOf(a, b), pool.ranked("metadata"))
+        assertEquals(listOf(b, a), pool.ranked("scraper"))
+
+        val stats = pool.stats().associateBy { it.baseUrl }
+        assertEquals(50.0, stats.getValue(a).latencyEwmaMs.getValue("metadata"), 0.001)
+        assertEquals(1_000.0, stats.getValue(b).latencyEwmaMs.getValue("scraper"), 0.001)
+    }
+
+    @Test
+    fun slowScraperDoesNotMoveMetadataRanking() {
+        val pool = MirrorPool(listOf(a, b))
+        pool.recordSuccess(a, 50, "metadata")
+        pool.recordSuccess(b, 80, "metadata")
+        pool.recordSuccess(a, 10_000, "scraper")
+        assertEquals(listOf(a, b), pool.ranked("metadata"))
+    }
+
+    @Test
+    fun unreachableMirrorGoesLast() {
+        val pool = MirrorPool(listOf(a, b))
+        pool.recordSuccess(a, 50, "metadata")
+        pool.recordSuccess(b, 500, "metadata")
+        pool.recordFailure(a, 10, unreachable = true, endpointClass = "metadata")
+        assertEquals(listOf(b, a), pool.ranked("metadata"))
+        assertTrue(pool.stats().first { it.baseUrl == a }.isDown)
+
+        pool.recordSuccess(a, 50, "metadata")
+        assertFalse(pool.stats().first { it.baseUrl == a }.isDown)
+    }
+
+    @Test
+    fun errorsCountAgainstEveryEndpointClass() {
+        val pool = MirrorPool(listOf(a, b))
+        pool.recordSuccess(a, 100, "scraper")
+        pool.recordSuccess(b, 150, "scraper")
+        repeat(5) { pool.recordFailure(a, 100, unreachable = false, endpointClass = "metadata") }
+        pool.recordSuccess(b, 100, "metadata")
+        assertEquals(listOf(b, a), pool.ranked("scraper"))
+    }
+
+    @Test
+    fun mirrorNotServingAnEndpointClassIsLeftOutOfItsRanking() {
+        val pool = MirrorPool(listOf(a, b))
+        pool.markUnsupported(b, "batch")
+        assertEquals(listOf(a), pool.ranked("batch"))
+        assertEquals(setOf(a, b), pool.ranked("scraper").toSet())
+        assertTrue(pool.serves("batch"))
+
+        pool.markUnsupported(a, "batch")
+        assertFalse(pool.serves("batch"))
+        assertTrue(pool.ranked("batch").isEmpty())
+    }
+
+    @Test
+    fun optionalRouteGoesToTheMirrorServingIt() {
+        val withoutRoute = server(batchStatus = 404)
+        val withRoute = server(batchStatus = 200)
+        try {
+            // The mirror without the route is primary and unmeasured: it's tried first
+            val primary = "http://127.0.0.1:${withoutRoute.server.address.port}/api/"
+            val other = "http://127.0.0.1:${withRoute.server.address.port}/api/"
+            val pool = MirrorPool(listOf(primary, other))
+            val client = OkHttpClient.Builder()
+                .addInterceptor(MirrorPoolInterceptor(pool, { if (it.method == "POST") "batch" else "default" }, setOf("batch")))
+                .build()
+
+            repeat(2) {
+                val batch = Request.Builder().url("${primary}movix-proxy/batch")
+                    .post("{}".toRequestBody("application/json".toMediaType())).build()
+                client.newCall(batch).execute().use { assertEquals(200, it.code) }
+            }
+            // Asked once, then skipped; a 404 on an optional route isn't a measured success
+            assertEquals(1, withoutRoute.batches.size)
+            assertEquals(2, withRoute.batches.size)
+            assertEquals(listOf(other), pool.ranked("batch"))
+            assertTrue(pool.stats().first { it.baseUrl == primary }.latencyEwmaMs.isEmpty())
+
+            // Every other request still goes to both
+            assertEquals(setOf(primary, other), pool.ranked().toSet())
+        } finally {
+            withoutRoute.server.stop(0)
+            withRoute.server.stop(0)
+        }
+    }
+
+    private class Server(val server: HttpServer, val batches: MutableList<String>)
+
+    private fun server(batchStatus: Int): Server {
+        val batches = Collections.synchronizedList(ArrayList<String>())
+        val server = HttpServer.create(InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0)
+        server.createContext("/api/movix-proxy/batch") { exchange ->
+            batches += exchange.requestBody.readBytes().decodeToString()
+            exchange.sendResponseHeaders(batchStatus, -1)
+            exchange.close()
+        }
+        server.start()
+        return Server(server, batches)
+    }
+}
@@ -0,0 +1,82 @@
+package com.anisflix.data.remote
+
+import com.sun.net.httpserver.HttpServer
+import okhttp3.HttpUrl.Companion.toHttpUrl
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import java.io.IOException
+import java.net.InetAddress
+import java.net.InetSocketAddress
+
+class NetworkMetricsTest {
+
+    private lateinit var server: HttpServer
+    private val metrics = NetworkMetrics()
+
+    @Before
+    fun setUp() {
+        server = HttpServer.create(InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0)
+        server.createContext("/") { exchange ->
+            val body = "ok".toByteArray()
+            exchange.sendResponseHeaders(200, body.size.toLong())
+            exchange.responseBody.use { it.write(body) }
+        }
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.stop(0)
+    }
+
+    @Test
+    fun creditsTheHostTheCallWentTo() {
+        val port = server.address.port
+        // Like MirrorPoolInterceptor: the call is made for one host and sent to another
+        val client = OkHttpClient.Builder()
+            .eventListenerFactory(metrics.EventListenerFactory())
+            .addInterceptor { chain ->
+                val request = chain.request()
+                chain.proceed(request.newBuilder().url(request.url.newBuilder().host("127.0.0.1").build()).build())
+            }
+            .build()
+
+        client.newCall(Request.Builder().url("http://primary.invalid:$port/").build()).execute().use { it.body!!.string() }
+
+        assertEquals(listOf("127.0.0.1"), metrics.hostStats().map { it.key })
+    }
+
+    @Test
+    fun keepsTheRequestHostWithoutRewrite() {
+        val port = server.address.port
+        val client = OkHttpClient.Builder().eventListenerFactory(metrics.EventListenerFactory()).build()
+
+        client.newCall(Request.Builder().url("http://localhost:$port/").build()).execute().use { it.body!!.string() }
+
+        assertEquals(listOf("localhost"), metrics.hostStats().map { it.key })
+    }
+
+    @Test
+    fun failedCallIsCreditedToTheHostTried() {
+        val client = OkHttpClient.Builder()
+            .eventListenerFactory(metrics.EventListenerFactory())
+            .addInterceptor { chain ->
+                chain.proceed(chain.request().newBuilder().url("http://mirror.invalid/".toHttpUrl()).build())
+            }
+            .build()
+
+        try {
+            client.newCall(Request.Builder().url("http://primary.invalid/").build()).execute().close()
+        } catch (e: IOException) {
+            // Expected: the host doesn't resolve
+        }
+
+        val stats = metrics.hostStats().single()
+        assertEquals("mirror.invalid", stats.key)
+        assertEquals(1L, stats.failures)
+    }
+}
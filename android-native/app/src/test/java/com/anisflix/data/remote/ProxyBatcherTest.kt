@@ -0,0 +1,182 @@
+package com.anisflix.data.remote
+
+import com.anisflix.data.repository.SourceFetchConfig
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.awaitCancellation
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import okhttp3.ResponseBody
+import okhttp3.ResponseBody.Companion.toResponseBody
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import retrofit2.Response
+import java.util.Collections
+
+class ProxyBatcherTest {
+
+    // Answers each batch with one section per path, "path" -> "body:path"
+    private open class FakeTransport : ProxyBatchTransport {
+        val batches: MutableList<List<String>> = Collections.synchronizedList(ArrayList())
+
+        override suspend fun open(paths: List<String>): Response<ResponseBody> {
+            batches += paths
+            return Response.success(sections(paths).toResponseBody())
+        }
+
+        open fun sections(paths: List<String>): String {
+            return paths.joinToString("") { section(it, 200, "\"body:$it\"") }
+        }
+    }
+
+    private val config = SourceFetchConfig(batchWindowMs = 15L, maxBatchSize = 3)
+
+    @Test
+    fun requestsWithinTheWindowShareOneBatch() = runBlocking(Dispatchers.Default) {
+        val transport = FakeTransport()
+        val batcher = ProxyBatcher(transport, config)
+
+        val results = listOf("a", "b", "c").map { path -> async { fetch(batcher, path) } }.awaitAll()
+
+        assertEquals(listOf("body:a", "body:b", "body:c"), results)
+        assertEquals(1, transport.batches.size)
+        assertEquals(setOf("a", "b", "c"), transport.batches[0].toSet())
+    }
+
+    @Test
+    fun batchesAreSplitAtMaxBatchSize() = runBlocking(Dispatchers.Default) {
+        val transport = FakeTransport()
+        val batcher = ProxyBatcher(transport, config)
+
+        val paths = listOf("a", "b", "c", "d", "e", "f", "g")
+        val results = paths.map { path -> async { fetch(batcher, path) } }.awaitAll()
+
+        // Two full batches; the one request left over has nothing to share a call with
+        assertEquals(listOf(3, 3), transport.batches.map { it.size })
+        val batched = transport.batches.flatten().toSet()
+        assertEquals(paths.map { if (it in batched) "body:$it" else "individual:$it" }, results)
+        assertEquals(6, batched.size)
+    }
+
+    @Test
+    fun missingSectionsFallBackToIndividualRequests() = runBlocking(Dispatchers.Default) {
+        val transport = object : FakeTransport() {
+            override fun sections(paths: List<String>) = section("a", 200, "\"body:a\"")
+        }
+        val batcher = ProxyBatcher(transport, config)
+
+        val results = listOf("a", "b").map { path -> async { fetch(batcher, path) } }.awaitAll()
+
+        assertEquals(listOf("body:a", "individual:b"), results)
+    }
+
+    @Test
+    fun malformedSectionFallsBackForTheRest() = runBlocking(Dispatchers.Default) {
+        val transport = object : FakeTransport() {
+            override fun sections(paths: List<String>) = section("a", 200, "\"body:a\"") + "{\"path\": \"b\", \"body\": "
+        }
+        val batcher = ProxyBatcher(transport, config)
+
+        val results = listOf("a", "b").map { path -> async { fetch(batcher, path) } }.awaitAll()
+
+        assertEquals(listOf("body:a", "individual:b"), results)
+    }
+
+    @Test
+    fun missingBatchEndpointFallsBack() = runBlocking(Dispatchers.Default) {
+        val transport = object : FakeTransport() {
+            override suspend fun open(paths: List<String>): Response<ResponseBody> {
+                batches += paths
+                return Response.error(404, "Not found".toResponseBody())
+            }
+        }
+        val batcher = ProxyBatcher(transport, config)
+
+        val results = listOf("a", "b").map { path -> async { fetch(batcher, path) } }.awaitAll()
+
+        assertEquals(listOf("individual:a", "individual:b"), results)
+    }
+
+    @Test
+    fun unavailableTransportIsNotAsked() = runBlocking(Dispatchers.Default) {
+        val transport = object : FakeTransport() {
+            override fun isAvailable() = false
+        }
+        val batcher = ProxyBatcher(transport, config)
+
+        val results = listOf("a", "b").map { path -> async { fetch(batcher, path) } }.awaitAll()
+
+        assertEquals(listOf("individual:a", "individual:b"), results)
+        assertTrue(transport.batches.isEmpty())
+    }
+
+    @Test
+    fun failedSectionFallsBackToIndividualRequest() = runBlocking(Dispatchers.Default) {
+        val transport = object : FakeTransport() {
+            override fun sections(paths: List<String>) =
+                section("a", 200, "\"body:a\"") + section("b", 502, "null") + section("c", 429, "null")
+        }
+        val batcher = ProxyBatcher(transport, config)
+
+        val results = listOf("a", "b", "c").map { path -> async { fetch(batcher, path) } }.awaitAll()
+
+        assertEquals(listOf("body:a", "individual:b", "individual:c"), results)
+    }
+
+    @Test
+    fun notFoundSectionCountsAsAFailedRequest() = runBlocking(Dispatchers.Default) {
+        val transport = object : FakeTransport() {
+            override fun sections(paths: List<String>) = section("a", 200, "\"body:a\"") + section("b", 404, "null")
+        }
+        val batcher = ProxyBatcher(transport, config)
+
+        val results = listOf("a", "b").map { path -> async { fetch(batcher, path) } }.awaitAll()
+
+        assertEquals("body:a", results[0])
+        assertNull(results[1])
+    }
+
+    @Test
+    fun batchIsCancelledOnceEveryWaiterIsGone() = runBlocking(Dispatchers.Default) {
+        val opened = CompletableDeferred<Unit>()
+        val cancelled = CompletableDeferred<Unit>()
+        val transport = object : FakeTransport() {
+            override suspend fun open(paths: List<String>): Response<ResponseBody> {
+                opened.complete(Unit)
+                try {
+                    awaitCancellation()
+                } finally {
+                    cancelled.complete(Unit)
+                }
+            }
+        }
+        val batcher = ProxyBatcher(transport, config)
+
+        val first = launch { fetch(batcher, "a") }
+        val second = launch { fetch(batcher, "b") }
+        withTimeout(TIMEOUT_MS) { opened.await() }
+
+        first.cancelAndJoin()
+        assertTrue("Still has a waiter", !cancelled.isCompleted)
+        second.cancelAndJoin()
+        withTimeout(TIMEOUT_MS) { cancelled.await() }
+    }
+
+    private suspend fun fetch(batcher: ProxyBatcher, path: String): String? {
+        return batcher.fetch(path, { it.nextString() }) { "individual:$path" }
+    }
+
+    companion object {
+        private const val TIMEOUT_MS = 5_000L
+
+        private fun section(path: String, status: Int, body: String): String {
+            return "{\"path\": \"$path\", \"status\": $status, \"body\": $body}\n"
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.anisflix.data.remote
+
+import com.anisflix.data.remote.api.MovixProxyApi
+import com.anisflix.data.remote.api.MovixUpstreamApi
+import com.anisflix.data.remote.dto.ProxyBatchRequest
+import com.anisflix.data.repository.SourceFetchConfig
+import kotlinx.coroutines.runBlocking
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.ResponseBody
+import okhttp3.ResponseBody.Companion.toResponseBody
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import retrofit2.Response
+import java.io.IOException
+
+class ProxyFetcherTest {
+
+    private class FakeUpstream(var answer: () -> Response<ResponseBody>) : MovixUpstreamApi {
+        val paths = ArrayList<String>()
+
+        override suspend fun get(path: String): Response<ResponseBody> {
+            paths += path
+            return answer()
+        }
+    }
+
+    private class FakeProxy : MovixProxyApi {
+        val paths = ArrayList<String>()
+
+        override suspend fun getProxyResponse(path: String, url: String?, query: String?): Response<ResponseBody> {
+            paths += path
+            return json("\"proxy:$path\"")
+        }
+
+        override suspend fun getBatchResponse(request: ProxyBatchRequest): Response<ResponseBody> = throw UnsupportedOperationException()
+
+        override suspend fun fetchRaw(url: String): Response<ResponseBody> = throw UnsupportedOperationException()
+    }
+
+    // Batching out of the way: every proxy request is individual
+    private object NoBatches : ProxyBatchTransport {
+        override fun isAvailable() = false
+
+        override suspend fun open(paths: List<String>): Response<ResponseBody> = throw UnsupportedOperationException()
+    }
+
+    private val config = SourceFetchConfig()
+    private val proxy = FakeProxy()
+
+    private fun fetcher(upstream: FakeUpstream) = ProxyFetcher(proxy, upstream, ProxyBatcher(NoBatches, config), config)
+
+    private fun ProxyFetcher.get(path: String): String? = runBlocking { fetch(path) { it.nextString() } }
+
+    @Test
+    fun directAnswerSkipsTheProxy() {
+        val fetcher = fetcher(FakeUpstream { json("\"direct\"") })
+        assertEquals("direct", fetcher.get("tmdb/movie/1"))
+        assertEquals(emptyList<String>(), proxy.paths)
+    }
+
+    @Test
+    fun notFoundIsPassedBackAndKeepsDirectMode() {
+        val upstream = FakeUpstream { Response.error(404, "{}".toResponseBody(JSON)) }
+        val fetcher = fetcher(upstream)
+
+        assertNull(fetcher.get("tmdb/movie/1"))
+        upstream.answer = { json("\"direct\"") }
+        assertEquals("direct", fetcher.get("tmdb/movie/2"))
+
+        assertEquals(listOf("tmdb/movie/1", "tmdb/movie/2"), upstream.paths)
+        assertEquals(emptyList<String>(), proxy.paths)
+    }
+
+    @Test
+    fun emptyAnswerIsPassedBack() {
+        val fetcher = fetcher(FakeUpstream { Response.success("".toResponseBody(JSON)) })
+        assertNull(fetcher.get("fstream/movie/1"))
+        assertEquals(emptyList<String>(), proxy.paths)
+    }
+
+    @Test
+    fun blockingStatusTurnsThePrefixToTheProxy() {
+        for (status in listOf(403, 429, 503)) {
+            val upstream = FakeUpstream { Response.error(status, "blocked".toResponseBody(HTML)) }
+            val fetcher = fetcher(upstream)
+            proxy.paths.clear()
+
+            assertEquals("proxy:tmdb/movie/1", fetcher.get("tmdb/movie/1"))
+            assertEquals("proxy:tmdb/movie/2", fetcher.get("tmdb/movie/2"))
+            // Other prefixes keep going direct
+            upstream.answer = { json("\"direct\"") }
+            assertEquals("direct", fetcher.get("fstream/movie/1"))
+
+            assertEquals(listOf("tmdb/movie/1", "fstream/movie/1"), upstream.paths)
+            assertEquals(listOf("tmdb/movie/1", "tmdb/movie/2"), proxy.paths)
+        }
+    }
+
+    @Test
+    fun challengePageTurnsThePrefixToTheProxy() {
+        val fetcher = fetcher(FakeUpstream { Response.success("<html>Just a moment...</html>".toResponseBody(HTML)) })
+        assertEquals("proxy:tmdb/movie/1", fetcher.get("tmdb/movie/1"))
+
+        // Same page without a content type: the read fails
+        val untyped = fetcher(FakeUpstream { Response.success("<html>Just a moment...</html>".toResponseBody()) })
+        assertEquals("proxy:tmdb/movie/1", untyped.get("tmdb/movie/1"))
+    }
+
+    @Test
+    fun transportErrorTurnsThePrefixToTheProxy() {
+        val fetcher = fetcher(FakeUpstream { throw IOException("unreachable") })
+        assertEquals("proxy:series/download/1", fetcher.get("series/download/1"))
+    }
+
+    @Test
+    fun proxyOnlyPathsNeverGoDirect() {
+        val upstream = FakeUpstream { json("\"direct\"") }
+        val fetcher = fetcher(upstream)
+        assertEquals("proxy:moviebox&tmdbId=1&type=movie", fetcher.get("moviebox&tmdbId=1&type=movie"))
+        assertEquals(emptyList<String>(), upstream.paths)
+    }
+
+    companion object {
+        private val JSON = "application/json".toMediaType()
+        private val HTML = "text/html; charset=utf-8".toMediaType()
+
+        private fun json(body: String): Response<ResponseBody> = Response.success(body.toResponseBody(JSON))
+    }
+}
@@ -0,0 +1,207 @@
+package com.anisflix.data.remote
+
+import com.anisflix.data.remote.api.MovixUpstreamApi
+import com.google.gson.stream.JsonReader
+import com.sun.net.httpserver.HttpServer
+import kotlinx.coroutines.runBlocking
+import okhttp3.Call
+import okhttp3.EventListener
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.ResponseBody
+import okhttp3.ResponseBody.Companion.asResponseBody
+import okhttp3.ResponseBody.Companion.toResponseBody
+import okio.Buffer
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import retrofit2.Response
+import retrofit2.Retrofit
+import java.io.IOException
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.Collections
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.logging.Handler
+import java.util.logging.LogRecord
+import java.util.logging.Logger
+
+class ResponseBodiesTest {
+
+    @Test
+    fun buffersGoBackToThePoolAfterEveryFetch() {
+        // The pool is shared: start from what it holds once a fetch has run
+        ResponseBodies.decode(success("[]"), ::readStrings)
+        val pooled = Utf8SourceReader.pooledCount()
+        assertTrue(pooled >= 1)
+
+        repeat(FETCHES) { i ->
+            when (i % 4) {
+                0 -> assertEquals(listOf("a", "b"), ResponseBodies.decode(success("""["a","b"]"""), ::readStrings))
+                1 -> assertEquals("a", ResponseBodies.decode(success("""["a","b"]""")) { it.beginArray(); it.nextString() })
+                2 -> assertNull(ResponseBodies.decode(error(), ::readStrings))
+                else -> try {
+                    ResponseBodies.decode(success("""["truncated", """), ::readStrings)
+                } catch (e: IOException) {
+                    // Malformed body: the reader throws, its buffers must still be released
+                }
+            }
+            // Each fetch takes a set of buffers from the pool and gives it back
+            assertEquals(pooled, Utf8SourceReader.pooledCount())
+        }
+    }
+
+    @Test
+    fun fetchesOverHttpLeaveNoConnectionBehind() {
+        // Without it each keep-alive exchange waits on a delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true")
+        val server = HttpServer.create(InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0)
+        server.respond("/ok", 200, "[\"a\",\"b\"]")
+        server.respond("/error", 500, "{\"error\": \"Erreur proxy Movix\"}")
+        server.respond("/malformed", 200, "[\"truncated\", ")
+        // Read partially and larger than what decode drains: left to the close
+        server.respond("/large", 200, "[1, " + "2, ".repeat(100_000) + "3]")
+        val serverExecutor = Executors.newFixedThreadPool(4)
+        server.executor = serverExecutor
+        server.start()
+
+        val leaks = Collections.synchronizedList(ArrayList<String>())
+        val okHttpLogger = Logger.getLogger(OkHttpClient::class.java.name)
+        val leakHandler = object : Handler() {
+            override fun publish(record: LogRecord) {
+                if (record.message.orEmpty().contains("leaked")) leaks += record.message
+            }
+            override fun flush() = Unit
+            override fun close() = Unit
+        }
+        okHttpLogger.addHandler(leakHandler)
+
+        val connects = AtomicInteger()
+        val client = OkHttpClient.Builder()
+            .eventListener(object : EventListener() {
+                override fun connectStart(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy) {
+                    connects.incrementAndGet()
+                }
+            })
+            .build()
+        val api = Retrofit.Builder()
+            .baseUrl("http://127.0.0.1:${server.address.port}/")
+            .client(client)
+            .build()
+            .create(MovixUpstreamApi::class.java)
+
+        try {
+            var answered = 0
+            var failed = 0
+            runBlocking {
+                repeat(FETCHES) { i ->
+                    val path = when (i % 10) {
+                        in 0..5 -> "ok"
+                        6, 7 -> "error"
+                        8 -> "malformed"
+                        else -> if (i % 100 == 99) "large" else "ok"
+                    }
+                    try {
+                        val read: (JsonReader) -> Any = if (path == "large") { r -> r.beginArray(); r.nextInt() } else ::readStrings
+                        if (ResponseBodies.decode(api.get(path), read) != null) answered++
+                    } catch (e: IOException) {
+                        failed++
+                    }
+                }
+            }
+            assertEquals(FETCHES / 10, failed)
+            assertTrue(answered > FETCHES / 2)
+
+            // Every body closed: the connection is back in the pool and was reused throughout
+            val pool = client.connectionPool
+            assertEquals(pool.connectionCount(), pool.idleConnectionCount())
+            assertTrue("${pool.connectionCount()} connections", pool.connectionCount() <= 1)
+            assertTrue("${connects.get()} connections opened", connects.get() <= FETCHES / 100 + 1)
+
+            // A leaked body is reported once its call is collected and the pool cleans up
+            System.gc()
+            runBlocking { ResponseBodies.decode(api.get("ok"), ::readStrings) }
+            Thread.sleep(100)
+            assertEquals(emptyList<String>(), leaks)
+        } finally {
+            okHttpLogger.removeHandler(leakHandler)
+            client.dispatcher.executorService.shutdown()
+            client.connectionPool.evictAll()
+            server.stop(0)
+            serverExecutor.shutdown()
+        }
+    }
+
+    @Test
+    fun concurrentFetchesDontGrowThePoolPastItsSize() {
+        val executor = Executors.newFixedThreadPool(8)
+        try {
+            val tasks = List(FETCHES) { Callable { ResponseBodies.decode(success("""["a","b"]"""), ::readStrings) } }
+            executor.invokeAll(tasks).forEach { assertEquals(listOf("a", "b"), it.get()) }
+        } finally {
+            executor.shutdown()
+            executor.awaitTermination(5, TimeUnit.SECONDS)
+        }
+        assertTrue(Utf8SourceReader.pooledCount() in 1..4)
+    }
+
+    @Test
+    fun smallRemainderIsDrainedWhenTheReaderStopsEarly() {
+        val source = Buffer().writeUtf8("""[1, """ + "2, ".repeat(10_000) + "3]")
+        val body = source.asResponseBody(JSON, source.size)
+
+        val first = ResponseBodies.decode(body) { it.beginArray(); it.nextInt() }
+
+        assertEquals(1, first)
+        assertEquals(0L, source.size)
+    }
+
+    @Test
+    fun largeRemainderIsLeftToTheClose() {
+        val source = Buffer().writeUtf8("""[1, """ + "2, ".repeat(100_000) + "3]")
+        val body = source.asResponseBody(JSON, source.size)
+
+        ResponseBodies.decode(body) { it.beginArray(); it.nextInt() }
+
+        assertTrue(source.size > 0)
+    }
+
+    @Test
+    fun byteOrderMarkAndMultiByteCharactersAreDecoded() {
+        val source = Buffer().write(byteArrayOf(0xEF.toByte(), 0xBB.toByte(), 0xBF.toByte())).writeUtf8("""["épisode ✓"]""")
+        val body = source.asResponseBody(JSON, source.size)
+
+        assertEquals(listOf("épisode ✓"), ResponseBodies.decode(body, ::readStrings))
+    }
+
+    private fun readStrings(reader: JsonReader): List<String> {
+        val values = ArrayList<String>()
+        reader.beginArray()
+        while (reader.hasNext()) values += reader.nextString()
+        reader.endArray()
+        return values
+    }
+
+    private fun HttpServer.respond(path: String, status: Int, body: String) {
+        createContext(path) { exchange ->
+            val bytes = body.toByteArray()
+            exchange.responseHeaders.add("Content-Type", "application/json")
+            exchange.sendResponseHeaders(status, bytes.size.toLong())
+            exchange.responseBody.use { it.write(bytes) }
+        }
+    }
+
+    companion object {
+        private const val FETCHES = 1000
+        private val JSON = "application/json".toMediaType()
+
+        private fun success(json: String): Response<ResponseBody> = Response.success(json.toResponseBody(JSON))
+
+        private fun error(): Response<ResponseBody> = Response.error(502, "Bad gateway".toResponseBody())
+    }
+}
@@ -0,0 +1,106 @@
+package com.anisflix.data.remote.parser
+
+import com.anisflix.data.remote.dto.FStreamResponse
+import com.anisflix.data.remote.dto.FStreamTVResponse
+import com.anisflix.data.remote.dto.MovieBoxResponse
+import com.anisflix.data.remote.dto.MovixTmdbSeriesResponse
+import com.google.gson.Gson
+import com.google.gson.JsonParser
+import com.google.gson.stream.JsonReader
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.StringReader
+import java.lang.management.ManagementFactory
+
+// Bytes allocated and time per parse of the recorded payloads, for the streaming reader,
+// gson.fromJson into the DTOs and a JsonElement tree. Opt-in: ./gradlew testDebugUnitTest -Pbenchmarks
+class ProviderJsonReaderBenchmark {
+
+    private val gson = Gson()
+    private lateinit var threads: com.sun.management.ThreadMXBean
+
+    @Before
+    fun setUp() {
+        assumeTrue(System.getProperty(ENABLED_PROPERTY).toBoolean())
+        val bean = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        assumeTrue(bean != null && bean.isThreadAllocatedMemorySupported)
+        threads = bean!!
+        threads.isThreadAllocatedMemoryEnabled = true
+    }
+
+    @Test
+    fun costComparedWithGson() {
+        val season = ProviderPayloads.read(ProviderPayloads.FSTREAM_SEASON)
+        val movie = ProviderPayloads.read(ProviderPayloads.FSTREAM_MOVIE)
+        val series = ProviderPayloads.read(ProviderPayloads.TMDB_SERIES)
+        val movieBox = ProviderPayloads.read(ProviderPayloads.MOVIEBOX)
+        val parses = listOf(
+            Parses(
+                "fstream season",
+                streaming = { ProviderJsonReader.readFStreamSeason(reader(season)) },
+                dtos = { gson.fromJson(season, FStreamTVResponse::class.java) },
+                tree = { JsonParser.parseReader(reader(season)) }
+            ),
+            Parses(
+                "fstream movie",
+                streaming = { ProviderJsonReader.readFStreamMovie(reader(movie)) },
+                dtos = { gson.fromJson(movie, FStreamResponse::class.java) },
+                tree = { JsonParser.parseReader(reader(movie)) }
+            ),
+            Parses(
+                "tmdb series",
+                streaming = { ProviderJsonReader.readPlayerLinks(reader(series)) },
+                dtos = { gson.fromJson(series, MovixTmdbSeriesResponse::class.java) },
+                tree = { JsonParser.parseReader(reader(series)) }
+            ),
+            Parses(
+                "moviebox",
+                streaming = { ProviderJsonReader.readMovieBox(reader(movieBox)) },
+                dtos = { gson.fromJson(movieBox, MovieBoxResponse::class.java) },
+                tree = { JsonParser.parseReader(reader(movieBox)) }
+            )
+        )
+
+        for (parse in parses) {
+            repeat(WARMUP) {
+                parse.streaming()
+                parse.dtos()
+                parse.tree()
+            }
+            val streaming = measure(parse.streaming)
+            val dtos = measure(parse.dtos)
+            val tree = measure(parse.tree)
+            println("${parse.name}: streaming $streaming, gson.fromJson $dtos, JsonElement tree $tree")
+            // Latency is only reported: wall-clock assertions are flaky on shared machines. Binding
+            // into the DTOs skips unknown fields too, so the reader is only expected not to cost more.
+            assertTrue("${parse.name}: $streaming vs $dtos", streaming.bytes <= dtos.bytes * 11 / 10)
+            assertTrue("${parse.name}: $streaming vs $tree", streaming.bytes < tree.bytes)
+        }
+    }
+
+    private class Parses(val name: String, val streaming: () -> Any?, val dtos: () -> Any?, val tree: () -> Any?)
+
+    private class Cost(val bytes: Long, val micros: Long) {
+        override fun toString() = "${bytes / 1024} KiB, $micros µs per parse"
+    }
+
+    private fun measure(parse: () -> Any?): Cost {
+        val thread = Thread.currentThread().id
+        val allocatedBefore = threads.getThreadAllocatedBytes(thread)
+        val started = System.nanoTime()
+        repeat(MEASURED) { parse() }
+        val elapsed = System.nanoTime() - started
+        val allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore
+        return Cost(allocated / MEASURED, elapsed / MEASURED / 1_000)
+    }
+
+    private fun reader(json: String) = JsonReader(StringReader(json))
+
+    companion object {
+        private const val ENABLED_PROPERTY = "anisflix.benchmarks"
+        private const val WARMUP = 200
+        private const val MEASURED = 200
+    }
+}
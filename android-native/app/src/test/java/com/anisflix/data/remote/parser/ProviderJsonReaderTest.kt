@@ -0,0 +1,191 @@
+package com.anisflix.data.remote.parser
+
+import com.anisflix.data.remote.dto.FStreamResponse
+import com.anisflix.data.remote.dto.FStreamTVResponse
+import com.anisflix.data.remote.dto.MovieBoxResponse
+import com.anisflix.data.remote.dto.MovixTmdbSeriesResponse
+import com.google.gson.Gson
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonWriter
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.io.StringReader
+import java.io.StringWriter
+
+// Same DTOs as gson.fromJson on the full tree (the parse it replaced). Its cost is measured by
+// ProviderJsonReaderBenchmark.
+class ProviderJsonReaderTest {
+
+    private val gson = Gson()
+
+    @Test
+    fun fstreamSeasonMatchesGson() {
+        val json = fstreamSeason()
+        assertEquals(gson.fromJson(json, FStreamTVResponse::class.java), ProviderJsonReader.readFStreamSeason(reader(json)))
+    }
+
+    @Test
+    fun fstreamMovieMatchesGson() {
+        val json = write { writer ->
+            writer.beginObject()
+            writeMetadata(writer)
+            writer.name("players")
+            writeLanguages(writer, 0)
+            writer.endObject()
+        }
+        assertEquals(gson.fromJson(json, FStreamResponse::class.java), ProviderJsonReader.readFStreamMovie(reader(json)))
+    }
+
+    @Test
+    fun playerLinksMatchGson() {
+        for (withEpisode in listOf(true, false)) {
+            val json = tmdbSeries(withEpisode)
+            val tree = gson.fromJson(json, MovixTmdbSeriesResponse::class.java)
+            assertEquals(tree.current_episode?.player_links ?: tree.player_links, ProviderJsonReader.readPlayerLinks(reader(json)))
+        }
+    }
+
+    @Test
+    fun movieBoxMatchesGson() {
+        val json = write { writer ->
+            writer.beginObject()
+            writer.name("success").value(true)
+            writeMetadata(writer)
+            writer.name("streams").beginArray()
+            repeat(8) { i ->
+                writer.beginObject()
+                writer.name("url").value("https://moviebox.example/$i.mp4")
+                writer.name("directUrl").value("https://cdn.example/$i.mp4")
+                writer.name("quality").value("${360 + i * 120}p")
+                writer.name("type").value("mp4")
+                writer.name("headers").beginObject().name("Referer").value("https://moviebox.example/").endObject()
+                writer.name("size").value(123_456_789L + i)
+                writer.endObject()
+            }
+            writer.endArray()
+            writer.endObject()
+        }
+        assertEquals(gson.fromJson(json, MovieBoxResponse::class.java), ProviderJsonReader.readMovieBox(reader(json)))
+    }
+
+    @Test
+    fun recordedPayloadsMatchGson() {
+        val season = ProviderPayloads.read(ProviderPayloads.FSTREAM_SEASON)
+        assertEquals(gson.fromJson(season, FStreamTVResponse::class.java), ProviderJsonReader.readFStreamSeason(reader(season)))
+
+        val movie = ProviderPayloads.read(ProviderPayloads.FSTREAM_MOVIE)
+        assertEquals(gson.fromJson(movie, FStreamResponse::class.java), ProviderJsonReader.readFStreamMovie(reader(movie)))
+
+        val series = ProviderPayloads.read(ProviderPayloads.TMDB_SERIES)
+        val tree = gson.fromJson(series, MovixTmdbSeriesResponse::class.java)
+        assertEquals(tree.current_episode?.player_links ?: tree.player_links, ProviderJsonReader.readPlayerLinks(reader(series)))
+
+        val movieBox = ProviderPayloads.read(ProviderPayloads.MOVIEBOX)
+        assertEquals(gson.fromJson(movieBox, MovieBoxResponse::class.java), ProviderJsonReader.readMovieBox(reader(movieBox)))
+    }
+
+    // --- Payloads shaped like the proxy's, with the metadata the mappers never read ---
+
+    private fun fstreamSeason(): String = write { writer ->
+        writer.beginObject()
+        writeMetadata(writer)
+        writer.name("episodes").beginObject()
+        for (episode in 1..EPISODES) {
+            writer.name(episode.toString()).beginObject()
+            writer.name("title").value("Episode $episode")
+            writer.name("overview").value(OVERVIEW)
+            writer.name("still_path").value("/still$episode.jpg")
+            writer.name("languages")
+            writeLanguages(writer, episode)
+            writer.endObject()
+        }
+        writer.endObject()
+        writer.endObject()
+    }
+
+    private fun writeLanguages(writer: JsonWriter, episode: Int) {
+        writer.beginObject()
+        for (language in listOf("VF", "VOSTFR", "VO")) {
+            writer.name(language).beginArray()
+            repeat(PLAYERS) { i ->
+                writer.beginObject()
+                writer.name("url").value("https://player$i.example/e/$episode-$language-$i")
+                writer.name("type").value(if (i % 2 == 0) "hls" else "mp4")
+                writer.name("quality").value("${480 + i * 120}p")
+                writer.name("player").value(listOf("vidmoly", "vidzy", "uqload")[i % 3])
+                writer.name("added_at").value("2024-05-0${i + 1}T12:00:00Z")
+                writer.name("reports").value(i.toLong())
+                writer.endObject()
+            }
+            writer.endArray()
+        }
+        writer.endObject()
+    }
+
+    private fun tmdbSeries(withEpisode: Boolean): String = write { writer ->
+        writer.beginObject()
+        writeMetadata(writer)
+        writer.name("player_links")
+        writeLinks(writer, "show", 24)
+        if (withEpisode) {
+            writer.name("current_episode").beginObject()
+            writer.name("season_number").value(1L)
+            writer.name("episode_number").value(3L)
+            writer.name("title").value("Episode 3")
+            writer.name("player_links")
+            writeLinks(writer, "episode", 8)
+            writer.endObject()
+        }
+        writer.endObject()
+    }
+
+    private fun writeLinks(writer: JsonWriter, prefix: String, count: Int) {
+        writer.beginArray()
+        repeat(count) { i ->
+            writer.beginObject()
+            writer.name("decoded_url").value("https://host$i.example/$prefix/$i.m3u8")
+            writer.name("quality").value("1080p")
+            writer.name("language").value(if (i % 2 == 0) "French" else "VOSTFR")
+            writer.name("provider").value("provider$i")
+            writer.name("type").value("hls")
+            writer.name("encoded_url").value("aHR0cHM6Ly9ob3N0LmV4YW1wbGUv".repeat(4))
+            writer.name("tracks").beginArray()
+            writer.beginObject().name("url").value("https://subs.example/$i.vtt").name("label").value("Français")
+                .name("code").value("fr").name("flag").value("🇫🇷").endObject()
+            writer.endArray()
+            writer.name("headers").beginObject().name("Referer").value("https://host$i.example/").endObject()
+            writer.endObject()
+        }
+        writer.endArray()
+    }
+
+    private fun writeMetadata(writer: JsonWriter) {
+        writer.name("tmdb").beginObject()
+        writer.name("id").value(1399L)
+        writer.name("overview").value(OVERVIEW)
+        writer.name("genres").beginArray()
+        repeat(5) { writer.beginObject().name("id").value(it.toLong()).name("name").value("Genre $it").endObject() }
+        writer.endArray()
+        writer.name("cast").beginArray()
+        repeat(40) {
+            writer.beginObject().name("name").value("Actor $it").name("character").value("Character $it")
+                .name("profile_path").value("/profile$it.jpg").name("popularity").value(12.5 + it).endObject()
+        }
+        writer.endArray()
+        writer.endObject()
+    }
+
+    private fun write(block: (JsonWriter) -> Unit): String {
+        val out = StringWriter()
+        JsonWriter(out).use(block)
+        return out.toString()
+    }
+
+    private fun reader(json: String) = JsonReader(StringReader(json))
+
+    companion object {
+        private const val EPISODES = 24
+        private const val PLAYERS = 6
+        private val OVERVIEW = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(8)
+    }
+}
@@ -0,0 +1,15 @@
+package com.anisflix.data.remote.parser
+
+// Provider responses kept under src/test/resources/provider-payloads, shaped like the proxy's
+// (metadata the mappers never read included). Refresh them when a provider changes its format.
+internal object ProviderPayloads {
+    const val FSTREAM_SEASON = "fstream-season.json"
+    const val FSTREAM_MOVIE = "fstream-movie.json"
+    const val TMDB_SERIES = "tmdb-series.json"
+    const val MOVIEBOX = "moviebox.json"
+
+    fun read(name: String): String {
+        val resource = requireNotNull(javaClass.getResource("/provider-payloads/$name")) { "Missing payload $name" }
+        return resource.readText()
+    }
+}
@@ -0,0 +1,85 @@
+package com.anisflix.domain.model
+
+import com.anisflix.domain.repository.ContentLanguage
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class SourceIndexTest {
+
+    private fun source(id: String, origin: String?, quality: String, language: String = "VF") = StreamingSource(
+        id = id,
+        url = "https://cdn.example/$id.m3u8",
+        quality = quality,
+        language = language,
+        provider = "host",
+        type = "hls",
+        origin = origin
+    )
+
+    @Test
+    fun providerPriorityComesBeforeQuality() {
+        // Fetch order: moviebox (priority 10) before fstream (20) before afterdark (40)
+        val index = SourceIndex.build(
+            listOf(
+                source("mb-720", "moviebox", "720p"),
+                source("fs-1080", "fstream", "1080p"),
+                source("ad-4k", "afterdark", "4K")
+            )
+        )
+        assertEquals(listOf("mb-720", "fs-1080", "ad-4k"), index.ranked.map { it.id })
+        assertEquals("mb-720", index.best(ContentLanguage.VF)?.id)
+    }
+
+    @Test
+    fun qualityRanksWithinAProvider() {
+        val index = SourceIndex.build(
+            listOf(
+                source("fs-480", "fstream", "480p"),
+                source("fs-unknown", "fstream", ""),
+                source("fs-1080", "fstream", "FHD"),
+                source("ad-720", "afterdark", "720p"),
+                source("ad-2160", "afterdark", "2160p")
+            )
+        )
+        assertEquals(listOf("fs-1080", "fs-480", "fs-unknown", "ad-2160", "ad-720"), index.ranked.map { it.id })
+    }
+
+    @Test
+    fun bucketsKeepTheRankedOrder() {
+        val index = SourceIndex.build(
+            listOf(
+                source("tmdb-vo", "tmdb", "720p", language = "VO"),
+                source("tmdb-vf", "tmdb", "480p"),
+                source("fs-vf", "fstream", "1080p"),
+                source("fs-vostfr", "fstream", "1080p", language = "VOSTFR")
+            )
+        )
+        assertEquals(listOf("tmdb-vf", "fs-vf"), index.forLanguage(ContentLanguage.VF).map { it.id })
+        assertEquals("fs-vostfr", index.best(ContentLanguage.VOSTFR)?.id)
+        assertEquals(setOf(ContentLanguage.VO, ContentLanguage.VF, ContentLanguage.VOSTFR), index.languages)
+        assertNull(SourceIndex.EMPTY.best(ContentLanguage.VF))
+    }
+
+    @Test
+    fun sourcesWithoutOriginAreRankedWhereTheyAppear() {
+        val index = SourceIndex.build(
+            listOf(
+                source("a", null, "480p"),
+                source("b", "fstream", "1080p"),
+                source("c", null, "1080p")
+            )
+        )
+        assertEquals(listOf("c", "a", "b"), index.ranked.map { it.id })
+    }
+
+    @Test
+    fun parsesQualityLabels() {
+        assertEquals(1080, SourceIndex.parseHeight("1080p"))
+        assertEquals(720, SourceIndex.parseHeight("720"))
+        assertEquals(2160, SourceIndex.parseHeight("4K"))
+        assertEquals(1080, SourceIndex.parseHeight("FHD"))
+        assertEquals(720, SourceIndex.parseHeight("HD"))
+        assertEquals(0, SourceIndex.parseHeight("Auto"))
+    }
+}
@@ -0,0 +1,6 @@
+// Thin Vercel entry (api/*.js) for POST /api/movix-proxy/batch (see vercel.json).
+// Every path of the batch goes through the movix-proxy handler.
+import movixProxyHandler from '../lib/handlers/movix-proxy.js';
+import { createMovixBatchHandler } from '../lib/handlers/movix-batch.js';
+
+export default createMovixBatchHandler(movixProxyHandler);
@@ -0,0 +1,5 @@
+export declare const MOVIX_BATCH_MAX_PATHS: number;
+
+export declare function createMovixBatchHandler(
+  proxyHandler: (req: any, res: any) => unknown
+): (req: any, res: any) => Promise<unknown>;
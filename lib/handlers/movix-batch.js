@@ -0,0 +1,158 @@
+import { Writable } from "stream";
+
+// Lot de requêtes movix-proxy (utilisé par l'app Android, voir ProxyBatcher) :
+// POST { paths: [...] } -> une section JSON par ligne {"path", "status", "body"}, écrite dès que
+// la requête correspondante se termine.
+// Chaque path passe par le même handler que GET /api/movix-proxy?path=..., donc un lot répond
+// exactement comme les requêtes seules. Un path sans section (réponse non JSON, erreur du
+// handler) est redemandé seul par le client.
+export const MOVIX_BATCH_MAX_PATHS = 16;
+
+const CORS_HEADERS = {
+  'Access-Control-Allow-Origin': process.env.PUBLIC_SITE_ORIGIN || '*',
+  'Access-Control-Allow-Methods': 'POST, OPTIONS',
+  'Access-Control-Allow-Headers': 'Content-Type, Authorization',
+};
+
+// "moviebox&tmdbId=1&type=movie" -> { path: "moviebox", tmdbId: "1", type: "movie" },
+// la forme qu'aurait la query de la requête seule
+function toQuery(path) {
+  const separator = path.indexOf('&');
+  if (separator < 0) return { path };
+  const params = Object.fromEntries(new URLSearchParams(path.slice(separator + 1)));
+  return { ...params, path: path.slice(0, separator) };
+}
+
+// Réponse en mémoire pour appeler le handler : status()/json()/send() comme Express et Vercel,
+// et un vrai flux pour les handlers qui font pipe(res)
+class CapturedResponse extends Writable {
+  constructor() {
+    super();
+    this.statusCode = 200;
+    this.headers = {};
+    this.headersSent = false;
+    this.chunks = [];
+    this.jsonBody = undefined;
+  }
+
+  _write(chunk, encoding, callback) {
+    this.headersSent = true;
+    this.chunks.push(Buffer.isBuffer(chunk) ? chunk : Buffer.from(chunk, encoding));
+    callback();
+  }
+
+  setHeader(name, value) {
+    this.headers[name.toLowerCase()] = value;
+    return this;
+  }
+
+  getHeader(name) {
+    return this.headers[name.toLowerCase()];
+  }
+
+  removeHeader(name) {
+    delete this.headers[name.toLowerCase()];
+  }
+
+  writeHead(statusCode, headers) {
+    this.statusCode = statusCode;
+    if (headers) Object.entries(headers).forEach(([name, value]) => this.setHeader(name, value));
+    return this;
+  }
+
+  status(statusCode) {
+    this.statusCode = statusCode;
+    return this;
+  }
+
+  json(body) {
+    this.jsonBody = body;
+    this.headersSent = true;
+    this.end();
+    return this;
+  }
+
+  send(body) {
+    if (body !== null && typeof body === 'object' && !Buffer.isBuffer(body)) return this.json(body);
+    this.end(body === undefined ? undefined : body);
+    return this;
+  }
+
+  // Le corps JSON de la réponse, ou undefined si elle n'en a pas
+  result() {
+    if (this.jsonBody !== undefined) return this.jsonBody;
+    if (this.chunks.length === 0) return undefined;
+    try {
+      return JSON.parse(Buffer.concat(this.chunks).toString('utf8'));
+    } catch {
+      return undefined;
+    }
+  }
+}
+
+async function runProxyHandler(proxyHandler, path, parentReq) {
+  const req = {
+    method: 'GET',
+    query: toQuery(path),
+    headers: { ...parentReq.headers, 'content-length': undefined },
+    url: `/api/movix-proxy?path=${encodeURIComponent(path)}`,
+  };
+  const res = new CapturedResponse();
+  const finished = new Promise((resolve) => res.on('finish', resolve));
+  await proxyHandler(req, res);
+  // Un handler peut rendre la main avant la fin d'un pipe ; sans pipe ni réponse, rien à attendre
+  if (!res.writableFinished && (res.writableEnded || res.listenerCount('unpipe') > 0)) await finished;
+  return { status: res.statusCode, body: res.result() };
+}
+
+// Handler POST du lot autour du handler GET movix-proxy (Express ou Vercel)
+export function createMovixBatchHandler(proxyHandler) {
+  return async function movixBatchHandler(req, res) {
+    Object.entries(CORS_HEADERS).forEach(([key, value]) => {
+      res.setHeader(key, value);
+    });
+
+    if (req.method === 'OPTIONS') {
+      return res.status(200).end();
+    }
+
+    if (req.method !== 'POST') {
+      return res.status(405).json({ error: 'Method not allowed' });
+    }
+
+    const paths = req.body?.paths;
+    if (!Array.isArray(paths) || paths.length === 0 || paths.length > MOVIX_BATCH_MAX_PATHS
+      || !paths.every((path) => typeof path === 'string' && path.length > 0)) {
+      return res.status(400).json({ error: `Paramètre "paths" invalide (1 à ${MOVIX_BATCH_MAX_PATHS} chaînes)` });
+    }
+
+    const uniquePaths = Array.from(new Set(paths));
+    console.log(`[MOVIX BATCH] ${uniquePaths.length} paths`);
+
+    // Le client qui abandonne n'attend plus les sections restantes
+    let closed = false;
+    res.on('close', () => { closed = true; });
+
+    res.status(200);
+    res.setHeader('Content-Type', 'application/x-ndjson; charset=utf-8');
+    res.setHeader('Cache-Control', 'no-store');
+    res.flushHeaders?.();
+
+    await Promise.all(uniquePaths.map(async (path) => {
+      let section;
+      try {
+        const { status, body } = await runProxyHandler(proxyHandler, path, req);
+        if (body === undefined) return; // Pas du JSON (flux, page) : redemandé seul
+        section = { path, status, body: status >= 200 && status < 300 ? body : null };
+      } catch (error) {
+        console.error('[MOVIX BATCH ERROR]', path, error.message);
+        return;
+      }
+      if (!closed && !res.writableEnded) {
+        res.write(JSON.stringify(section) + '\n');
+      }
+    }));
+
+    if (!res.writableEnded) res.end();
+  };
+}
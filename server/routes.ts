@@ -1,4 +1,4 @@
-import type { Express } from "express";
+import type { Express, Request, Response } from "express";
 import { createServer, type Server } from "http";
 import { storage } from "./storage";
 import { getVidzyM3u8Link } from "./vidzy-scraper";
@@ -7,6 +7,7 @@ import { registerHLSProxyRoutes } from "./hls-proxy";
 import axios from "axios";
 import https from "https"; // Toujours utilisé pour d'autres routes
 import { vixsrcScraper } from "./vixsrc-scraper";
+import { createMovixBatchHandler } from "../lib/handlers/movix-batch.js";
 
 export async function registerRoutes(app: Express): Promise<Server> {
   // put application routes here
@@ -266,7 +267,7 @@ export async function registerRoutes(app: Express): Promise<Server> {
   // e.g. storage.insertUser(user) or storage.getUserByUsername(username)
 
   // Route proxy unifiée pour l'API Movix (similaire à api/movix-proxy/index.js)
-  app.get("/api/movix-proxy", async (req, res) => {
+  const movixProxyRoute = async (req: Request, res: Response) => {
     try {
       const { path, ...queryParams } = req.query;
 
@@ -386,7 +387,13 @@ export async function registerRoutes(app: Express): Promise<Server> {
         });
       }
     }
-  });
+  };
+
+  app.get("/api/movix-proxy", movixProxyRoute);
+
+  // Lot de requêtes Movix (utilisé par l'app Android, voir ProxyBatcher) : chaque path passe par
+  // movixProxyRoute, comme la requête seule (voir lib/handlers/movix-batch.js)
+  app.post("/api/movix-proxy/batch", createMovixBatchHandler(movixProxyRoute));
 
   // Route proxy pour l'API Movix TMDB (pour compatibilité)
   // Utilise maintenant la route movix-proxy locale avec le paramètre path=tmdb